@@ -12,6 +12,10 @@ public class App {
 	public static void main(String[] args) {
 		try (var ui = Dialog.UI) {
 			var receiver = Calculator.getInstance();
+			// Formulas are recalculated in the background only when asked to, with -Dbackground=true
+			receiver.setBackgroundRecalculation(Boolean.getBoolean("background"));
+			// and independent formulas in parallel only with -Dparallel=true
+			receiver.setParallelRecalculation(Boolean.getBoolean("parallel"));
 			String datafile = System.getProperty("import");
 			if (datafile != null) {
 				try {
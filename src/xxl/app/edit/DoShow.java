@@ -22,7 +22,13 @@ class DoShow extends Command<Spreadsheet> {
 	protected final void execute() throws CommandException {
 		String gamma = Form.requestString(Message.address());
 		try {
-			_display.popup(_receiver.visualizeGamma(gamma));
+			Spreadsheet.Visualization visualization = _receiver.visualize(gamma);
+			String cells = visualization.getCells();
+			if (visualization.isOutdated()) {
+				// The values shown may not account for the last edits yet
+				cells = Message.recalculating() + "\n" + cells;
+			}
+			_display.popup(cells);
 		}
 		catch(InvalidCellIntervalException e) {
 			throw new InvalidCellRangeException(gamma);
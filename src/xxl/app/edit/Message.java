@@ -13,4 +13,9 @@ interface Message {
   static String contents() {
     return "Insira o conteúdo da célula: ";
   }
+
+  /** @return string warning that the values shown may not account for the last edits. */
+  static String recalculating() {
+    return "(a recalcular)";
+  }
 }
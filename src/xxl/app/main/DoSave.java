@@ -32,6 +32,10 @@ class DoSave extends Command<Calculator> {
 			catch (MissingFileAssociationException | IOException e) {
 				throw new FileOpenFailedException(e);
 			}
+			catch (IllegalStateException e) {
+				// The background recalculation failed, so the formulas can't be trusted to be saved
+				throw new FileOpenFailedException(e);
+			}
 		}
 	}
 }
@@ -1,6 +1,7 @@
 package xxl.core;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.FileInputStream;
@@ -36,6 +37,12 @@ public class Calculator {
 	/** A collection of users registered in the calculator application. */
 	private Map<Integer, User> _users;
 
+	/** Whether the spreadsheets opened here recalculate their formulas in the background. */
+	private boolean _backgroundRecalculation;
+
+	/** Whether the spreadsheets opened here recompute independent formulas in parallel. */
+	private boolean _parallelRecalculation;
+
 	/**
 	 * Constructs a new {@code Calculator} object, initializing it with a default "root" user.
 	 * The "root" user is set as the active user, and it is added to the list of users.
@@ -80,6 +87,7 @@ public class Calculator {
 
 	/**
 	 * Saves the serialized application's state into the file associated to the current network.
+	 * Recalculations under way in the background are waited for, so the saved values account for every edit.
 	 *
 	 * @throws MissingFileAssociationException if the current network does not have a file.
 	 * @throws IOException if there is some error while serializing the state of the network to disk.
@@ -89,6 +97,13 @@ public class Calculator {
 			throw new MissingFileAssociationException();
 		}
 		else {
+			try {
+				_spreadsheet.awaitQuiescence();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the recalculation to finish");
+			}
 			try (FileOutputStream fileOut = new FileOutputStream(_currentFile);
 				ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
 				// Spreadsheet is now saved, not changed anymore
@@ -125,7 +140,7 @@ public class Calculator {
 	public void loadFile(String filename) throws UnavailableFileException {
 		try (FileInputStream fileIn = new FileInputStream(filename);
 			ObjectInputStream in = new ObjectInputStream(fileIn)) {
-			_spreadsheet = (Spreadsheet) in.readObject();
+			setSpreadsheet((Spreadsheet) in.readObject());
 			setCurrentFile(filename);
 		}
 		catch (IOException | ClassNotFoundException e) {
@@ -142,7 +157,7 @@ public class Calculator {
 	public void importFile(String filename) throws ImportFileException {
 		try {
 			Parser parser = new Parser(_spreadsheet);
-			_spreadsheet = parser.parseFile(filename);
+			setSpreadsheet(parser.parseFile(filename));
 			_spreadsheet.linkUser(_activeUser);
 			_spreadsheet.flagAsChanged();
 		} 
@@ -158,11 +173,52 @@ public class Calculator {
 	 * @param columns The number of columns in the new spreadsheet.
 	 */
 	public void createSpreadsheet(int rows, int columns) {
-		_spreadsheet = new Spreadsheet(rows, columns);
+		setSpreadsheet(new Spreadsheet(rows, columns));
 		_spreadsheet.linkUser(_activeUser);
 		_spreadsheet.flagAsChanged();
 	}
 
+	/**
+	 * Turns the background recalculation on or off for the current spreadsheet and the ones opened from here on.
+	 *
+	 * @param enabled Whether formulas are recalculated in the background.
+	 * @see Spreadsheet#setBackgroundRecalculation(boolean)
+	 */
+	public void setBackgroundRecalculation(boolean enabled) {
+		_backgroundRecalculation = enabled;
+		if (_spreadsheet != null) {
+			_spreadsheet.setBackgroundRecalculation(enabled);
+		}
+	}
+
+	/**
+	 * Turns the parallel recalculation on or off for the current spreadsheet and the ones opened from here on.
+	 *
+	 * @param enabled Whether independent formulas are recomputed in parallel.
+	 * @see DependencyGraph#setParallel(boolean)
+	 */
+	public void setParallelRecalculation(boolean enabled) {
+		_parallelRecalculation = enabled;
+		if (_spreadsheet != null) {
+			_spreadsheet.getDependencyGraph().setParallel(enabled);
+		}
+	}
+
+	/**
+	 * Makes the given spreadsheet the current one, recalculating its formulas in the background and in parallel
+	 * if asked to. The worker of the spreadsheet it replaces, if it has one, is let go.
+	 *
+	 * @param spreadsheet The new current spreadsheet.
+	 */
+	private void setSpreadsheet(Spreadsheet spreadsheet) {
+		if (_spreadsheet != null) {
+			_spreadsheet.setBackgroundRecalculation(false);
+		}
+		_spreadsheet = spreadsheet;
+		_spreadsheet.getDependencyGraph().setParallel(_parallelRecalculation);
+		_spreadsheet.setBackgroundRecalculation(_backgroundRecalculation);
+	}
+
 	/**
 	 * Creates a new user with the specified username and adds it to the user collection if the username does not already exist.
 	 *
@@ -2,13 +2,11 @@ package xxl.core;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import xxl.core.content.Content;
-import xxl.core.content.Observer;
 import xxl.core.content.literal.Literal;
 import xxl.core.content.literal.LiteralNull;
+import xxl.core.content.literal.LiteralNullFunction;
 import xxl.core.content.literal.LiteralNullValue;
 
 /**
@@ -26,8 +24,8 @@ public class Cell implements Serializable {
 	/** The position (row and column coordinates) of the cell. */
 	private Position _position;
 
-	/** The list of observers of the cell. Naturally they are updated after changes. */
-	private List<Observer> _observers;
+	/** Whether the cell is caught in a cycle of formulas reading each other, which leaves it without a value. */
+	private boolean _cyclic;
 
 	/** The serial version UID for object serialization. */
 	@Serial
@@ -42,8 +40,7 @@ public class Cell implements Serializable {
 	 */
 	public Cell(int row, int column) {
 		_position = new Position(row, column);
-		_content = new LiteralNullValue();
-		_observers = new ArrayList<Observer>();
+		_content = LiteralNullValue.getInstance();
 	}
 
 	/**
@@ -54,8 +51,7 @@ public class Cell implements Serializable {
 	 */
 	public Cell(Position position) {
 		_position = position;
-		_content = new LiteralNullValue();
-		_observers = new ArrayList<Observer>();
+		_content = LiteralNullValue.getInstance();
 	}
 
 	/**
@@ -78,58 +74,68 @@ public class Cell implements Serializable {
 
 	/**
 	 * Returns a string representation of the cell, including its position and content.
+	 * A cell caught in a cycle shows its content with an error for a value.
 	 *
 	 * @return A string in the format "row;column|content".
 	 */
 	@Override
 	public String toString() {
+		if (_cyclic) {
+			return _position.toString() + "|" + _content.toString(LiteralNullFunction.getInstance());
+		}
 		return _position.toString() + "|" + _content.toString();
 	}
 
 	/**
-	 * Retrieves the value of the cell's content.
+	 * Returns a string representation of the cell showing the value its content settled on last, without
+	 * evaluating anything.
 	 *
-	 * @return The value of the cell's content as a {@link Literal}.
+	 * @return A string in the format "position|content", with the content showing its last value.
 	 */
-	public Literal getValue() {
-		return _content.getValue();
+	String toSettledString() {
+		Literal value = _cyclic ? LiteralNullFunction.getInstance() : _content.getLastValue();
+		return _position.toString() + "|" + _content.toString(value);
 	}
 
 	/**
-	 * Adds an observer to the cell's list of observers.
+	 * Retrieves the value of the cell's content, or an error if the cell is caught in a cycle.
 	 *
-	 * @param observer The observer to be added to the list of observers.
+	 * @return The value of the cell's content as a {@link Literal}.
 	 */
-	public void addObserver(Observer observer) {
-		_observers.add(observer);
+	public Literal getValue() {
+		if (_cyclic) {
+			return LiteralNullFunction.getInstance();
+		}
+		return _content.getValue();
 	}
 
 	/**
-	 * Removes an observer from the cell's list of observers.
+	 * Checks if the cell is caught in a cycle of formulas reading each other.
 	 *
-	 * @param observer The observer to be removed from the list of observers.
+	 * @return {@code true} if the cell is caught in a cycle, {@code false} otherwise.
 	 */
-	public void removeObserver(Observer observer) {
-		_observers.remove(observer);
+	public boolean isCyclic() {
+		return _cyclic;
 	}
 
 	/**
-	 * Notifies all registered observers about changes in the cell's state.
+	 * Flags the cell as caught in a cycle of formulas reading each other, or as no longer caught in one.
+	 * Only the {@link DependencyGraph} of the spreadsheet, which finds the cycles, flags cells.
+	 *
+	 * @param cyclic Whether the cell is caught in a cycle.
 	 */
-	public void notifyObservers() {
-		for (Observer observer: _observers) {
-			observer.update();
-		}
+	void setCyclic(boolean cyclic) {
+		_cyclic = cyclic;
 	}
 
 	/**
-	 * Sets the content for the cell.
+	 * Sets the content for the cell. Formulas depending on the cell are recalculated by the
+	 * {@link DependencyGraph} of its spreadsheet, not by the cell itself.
 	 *
 	 * @param content The type of content to be set in the cell.
 	 */
 	void setContent(Content content) {
 		_content = content;
-		notifyObservers();
 	}
 
 }
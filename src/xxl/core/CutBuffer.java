@@ -35,7 +35,9 @@ public class CutBuffer implements Serializable {
 	}
 
 	/**
-	 * Retrieves the list of cells stored in the cut buffer.
+	 * Retrieves the list of cells stored in the cut buffer. Copied formulas still in a spreadsheet are
+	 * kept up to date by it, and the ones cut from it compute their values when read, so the cells are
+	 * always current.
 	 *
 	 * @return The list of cells in the cut buffer.
 	 */
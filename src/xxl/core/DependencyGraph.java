@@ -0,0 +1,1385 @@
+package xxl.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import xxl.core.content.Content;
+import xxl.core.content.Observer;
+import xxl.core.content.literal.Literal;
+
+/**
+ * The {@code DependencyGraph} class keeps track of which positions of a {@link Spreadsheet} each formula reads,
+ * and recalculates the formulas affected by a change. Nodes are positions, identified by their packed
+ * coordinates, and edges go from the positions read to the formula reading them.
+ * <p>
+ * Edges are kept as ranges, indexed by the row of the ranges lying on a single row (lone references
+ * included) and by the column of the ones spanning several rows. Finding the formulas that read a
+ * position is then a matter of checking the ranges of its row and of its column, and no cell needs
+ * to exist for a position to be read. The formulas themselves are kept sorted by row and by column, so
+ * the formulas inside a range are found without going through each of its positions.
+ * <p>
+ * Each formula is given a rank, lower than the rank of every formula reading it, which is kept as formulas
+ * are written. After a change, the formulas it reaches are settled in order of rank, so each one is settled
+ * exactly once and only reads values that are already up to date; a formula is only reached once a value
+ * it reads is seen to change, so a change that stops making a difference stops there, however many
+ * formulas depend on it. Formulas are told how each value they read changed, so the ones able to do so
+ * can update themselves incrementally. Formulas that must be recomputed in full may be recomputed in
+ * parallel, a level at a time.
+ * <p>
+ * Formulas reading each other in a cycle are found as soon as the cycle is closed, and their cells are
+ * flagged, so they read as an error instead of being evaluated around the cycle. Writing to any position
+ * of a cycle clears its flags, and whatever is still caught in a cycle afterwards is flagged again.
+ * <p>
+ * While lazy evaluation is on, formulas are settled when they are read rather than when they change: a
+ * formula nothing reads isn't evaluated when it is written nor when a change reaches it. Lazy evaluation
+ * is off unless turned on.
+ *
+ * @Serial 202610171930L
+ */
+public class DependencyGraph implements Serializable {
+
+	/** The spreadsheet whose formulas are tracked. */
+	private final Spreadsheet _spreadsheet;
+
+	/** The ranges read by each formula, keyed by the packed position of the formula. */
+	private final Map<Long, List<Range>> _precedents = new HashMap<Long, List<Range>>();
+
+	/** The ranges lying on a single row, keyed by that row. */
+	private final Map<Integer, List<Range>> _rowRanges = new HashMap<Integer, List<Range>>();
+
+	/** The ranges spanning several rows of a single column, keyed by that column. */
+	private final Map<Integer, List<Range>> _columnRanges = new HashMap<Integer, List<Range>>();
+
+	/** The packed positions of the formulas reading something, in row-major order. */
+	private final NavigableSet<Long> _formulasByRow = new TreeSet<Long>();
+
+	/** The positions of the formulas reading something, packed column first, in column-major order. */
+	private final NavigableSet<Long> _formulasByColumn = new TreeSet<Long>();
+
+	/** The number of formulas recomputed since the graph was created. */
+	private long _recomputeCount;
+
+	/** The number of changes that had formulas depending on them. */
+	private long _recalculationCount;
+
+	/** The number of updates formulas absorbed incrementally. */
+	private long _incrementalUpdateCount;
+
+	/** Whether incremental updates are checked against full recomputations. */
+	private boolean _consistencyChecks;
+
+	/** The formula subscribed at each position, keyed by the packed position. */
+	private final Map<Long, Content> _subscribers = new HashMap<Long, Content>();
+
+	/** The number of positions each subscribed formula is subscribed at. */
+	private final Map<Content, Integer> _subscriptionCounts = new IdentityHashMap<Content, Integer>();
+
+	/** Whether the formulas of a level are recomputed in parallel. */
+	private boolean _parallel;
+
+	/** Whether formulas are settled when read instead of when they change. */
+	private boolean _lazyEvaluation;
+
+	/** The number of computations formulas put off until they are read. Counted from several threads. */
+	private final LongAdder _deferredComputationCount = new LongAdder();
+
+	/** The number of computations put off that were carried out once the formula was read. Counted from several threads. */
+	private final LongAdder _lazyComputationCount = new LongAdder();
+
+	/** The positions of the cycle each position caught in one belongs to, keyed by the packed position. */
+	private final Map<Long, Set<Long>> _cycles = new HashMap<Long, Set<Long>>();
+
+	/**
+	 * The positions whose formulas were not kept up to date, so they are recomputed by the next recalculation
+	 * whatever changed: the ones whose cycle was cleared since, as they read as errors while it lasted, and
+	 * the ones a recalculation cut short didn't settle.
+	 */
+	private final Set<Long> _released = new HashSet<Long>();
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171930L;
+
+	/**
+	 * The room left between the rank of a formula and the ranks of the formulas around it, so formulas written
+	 * in between later fit without moving the others.
+	 */
+	private static final long RANK_GAP = 1L << 20;
+
+	/**
+	 * The fewest formulas a level must recompute for them to be spread over threads. Below that, handing them
+	 * out costs more than recomputing them in place.
+	 */
+	private static final int PARALLEL_THRESHOLD = 64;
+
+	/** The most formulas a parallel task recomputes itself rather than splitting them. */
+	private static final int SLICE_SIZE = 16;
+
+	/**
+	 * The rank of each formula reading something, keyed by its packed position. Lower than the rank of every
+	 * formula reading it, unless both are caught in the same cycle. Other positions rank below every formula.
+	 */
+	private final Map<Long, Long> _ranks = new HashMap<Long, Long>();
+
+	/**
+	 * The value, from before, of each position whose cycle flag flipped since the last recalculation started,
+	 * keyed by the packed position, or null if it was not settled then. Their values changed without anything
+	 * they read changing, so the next recalculation starts from them as well.
+	 */
+	private final Map<Long, Literal> _flipped = new HashMap<Long, Literal>();
+
+	/**
+	 * A task recomputing a slice of the formulas of a level, split in halves until each formula is its own task.
+	 */
+	private static class Recomputation extends RecursiveAction {
+
+		/** The formulas of the level to recompute. */
+		private final List<Observer> _observers;
+
+		/** The index of the first formula of the slice. */
+		private final int _from;
+
+		/** The index after the last formula of the slice. */
+		private final int _to;
+
+		/** The serial version UID for ensuring version compatibility during serialization. */
+		@Serial
+		private static final long serialVersionUID = 202610171600L;
+
+		/**
+		 * Creates a new task recomputing the given slice of formulas.
+		 *
+		 * @param observers The formulas of the level to recompute.
+		 * @param from      The index of the first formula of the slice.
+		 * @param to        The index after the last formula of the slice.
+		 */
+		private Recomputation(List<Observer> observers, int from, int to) {
+			_observers = observers;
+			_from = from;
+			_to = to;
+		}
+
+		/**
+		 * Recomputes the slice, or splits it in halves if it holds more than {@value #SLICE_SIZE} formulas.
+		 */
+		@Override
+		protected void compute() {
+			if (_to - _from <= SLICE_SIZE) {
+				for (int index = _from; index < _to; index++) {
+					_observers.get(index).update();
+				}
+				return;
+			}
+			int middle = (_from + _to) >>> 1;
+			invokeAll(new Recomputation(_observers, _from, middle), new Recomputation(_observers, middle, _to));
+		}
+
+	}
+
+	/**
+	 * A change about to be made to one or more positions: the positions written, and the values of the nodes
+	 * it reaches from before they changed. Only the positions written are taken down before they are; the
+	 * formulas depending on them are reached as the change is recalculated, through the values that changed.
+	 */
+	static class Change {
+
+		/** The packed positions about to change. */
+		private final Set<Long> _origins = new HashSet<Long>();
+
+		/**
+		 * The value of each node before the change, keyed by its packed position: taken down for the positions
+		 * written right before they are, and for the formulas reached right before they are first told about
+		 * a value they read. A node missing here counts as changed.
+		 */
+		private final Map<Long, Literal> _oldValues = new HashMap<Long, Literal>();
+
+	}
+
+	/**
+	 * A recalculation under way, settling the formulas of a change a step at a time: a level of formulas that
+	 * don't read each other while they are recomputed in parallel, or else a single formula. Nothing is left
+	 * half done between steps, so the recalculation may be cut short there, handing the formulas it didn't
+	 * settle yet over to a change still to be recalculated.
+	 */
+	class Recalculation {
+
+		/** The change being recalculated. */
+		private final Change _change;
+
+		/** The nodes reached and not settled yet, each held with its rank, lowest rank first. */
+		private final PriorityQueue<long[]> _pending = new PriorityQueue<long[]>(
+				Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+
+		/** The nodes reached so far, settled or not. */
+		private final Set<Long> _reached = new HashSet<Long>();
+
+		/**
+		 * Whether the change ran into a cycle, from where on nodes are settled one at a time and no formula is
+		 * updated incrementally.
+		 */
+		private boolean _cyclic;
+
+		/** The formulas that couldn't absorb an update and must be recomputed. */
+		private final Set<Content> _stale = Collections.newSetFromMap(new IdentityHashMap<Content, Boolean>());
+
+		/** The formulas that must be recomputed whatever they are told, as they were not kept up to date. */
+		private final Set<Content> _staleOrigins = Collections.newSetFromMap(new IdentityHashMap<Content, Boolean>());
+
+		/**
+		 * Creates a new recalculation of the given change, with nothing reached yet.
+		 *
+		 * @param change The change to recalculate.
+		 */
+		private Recalculation(Change change) {
+			_change = change;
+		}
+
+		/**
+		 * Reaches a node the change starts from, leaving its value from before the change as it was taken down.
+		 *
+		 * @param node The packed position of the node.
+		 */
+		private void start(long node) {
+			if (_reached.add(node)) {
+				_cyclic |= _cycles.containsKey(node);
+				_pending.add(new long[] { rankOf(node), node });
+			}
+		}
+
+		/**
+		 * Reaches a formula reading a node whose value changed, taking down its value before it is told.
+		 *
+		 * @param node The packed position of the formula.
+		 */
+		private void reach(long node) {
+			if (!_reached.contains(node) && !_change._oldValues.containsKey(node)) {
+				Literal value = settledValueAt(node);
+				if (value != null) {
+					_change._oldValues.put(node, value);
+				}
+			}
+			start(node);
+		}
+
+		/**
+		 * Checks if every node the change reached is settled.
+		 *
+		 * @return {@code true} if the recalculation is done, {@code false} otherwise.
+		 */
+		boolean isDone() {
+			return _pending.isEmpty();
+		}
+
+		/**
+		 * Settles the next step of the change: recomputes the formulas of the step that must be, and passes on
+		 * the values of its nodes that changed to the formulas reading them.
+		 */
+		void step() {
+			if (!_parallel || _cyclic) {
+				long node = _pending.poll()[1];
+				Observer observer = takeIfStale(node);
+				if (observer != null) {
+					observer.update();
+					_recomputeCount++;
+				}
+				propagate(node);
+				return;
+			}
+			// Takes the nodes by rank as long as they rank below every formula reading any of them, so none of
+			// them can reach another, however far, and they form a level
+			List<Long> level = new ArrayList<Long>();
+			long bound = Long.MAX_VALUE;
+			while (!_pending.isEmpty() && (level.isEmpty() || _pending.peek()[0] < bound)) {
+				long node = _pending.poll()[1];
+				level.add(node);
+				for (long dependent: dependentsOf(Position.rowOf(node), Position.columnOf(node))) {
+					bound = Math.min(bound, rankOf(dependent));
+				}
+			}
+			List<Observer> recomputations = new ArrayList<Observer>();
+			for (long node: level) {
+				Observer observer = takeIfStale(node);
+				if (observer != null) {
+					recomputations.add(observer);
+				}
+			}
+			if (recomputations.size() < PARALLEL_THRESHOLD) {
+				recomputations.forEach(Observer::update);
+			}
+			else {
+				ForkJoinPool.commonPool().invoke(new Recomputation(recomputations, 0, recomputations.size()));
+			}
+			_recomputeCount += recomputations.size();
+			// Changes are passed on one node at a time, in a fixed order, so results don't depend on scheduling
+			for (long node: level) {
+				propagate(node);
+			}
+		}
+
+		/**
+		 * Cuts the recalculation short, adding the nodes it reached and didn't settle yet to a change still to be
+		 * recalculated. Their formulas may have been told about only some of the values they read changing, so
+		 * that change recomputes them in full. The nodes settled so far hold their new values, which become their
+		 * values from before that change.
+		 *
+		 * @param pending The change to add the nodes to, or null to start a new one.
+		 * @return The change holding the nodes, or the given one if every node was settled.
+		 */
+		Change cutShort(Change pending) {
+			while (!_pending.isEmpty()) {
+				long node = _pending.poll()[1];
+				if (pending == null) {
+					pending = new Change();
+				}
+				pending._origins.add(node);
+				// The formulas reading the node were told nothing of it yet, so they still hold the value from
+				// before this recalculation, whatever it was taken down as since
+				Literal oldValue = _change._oldValues.get(node);
+				if (oldValue != null) {
+					pending._oldValues.put(node, oldValue);
+				}
+				else {
+					pending._oldValues.remove(node);
+					_flipped.replace(node, null);
+				}
+				_released.add(node);
+			}
+			return pending;
+		}
+
+		/**
+		 * Takes the formula at a node out of the ones to recompute, if it is one of them.
+		 *
+		 * @param node The packed position of the node.
+		 * @return The formula to recompute, or null if it needs no recomputing.
+		 */
+		private Observer takeIfStale(long node) {
+			Content content = contentAt(node);
+			// Contents pasted into several positions are recomputed at the first of them
+			if (content instanceof Observer observer && (_staleOrigins.remove(content) | _stale.remove(content))) {
+				return observer;
+			}
+			return null;
+		}
+
+		/**
+		 * Passes on the new value of a settled node, if it changed, to the formulas reading it, which are
+		 * reached from here.
+		 *
+		 * @param node The packed position of the node.
+		 */
+		private void propagate(long node) {
+			Content content = contentAt(node);
+			boolean incremental = !_cyclic;
+			// Only now is everything the formula reads settled
+			if (_consistencyChecks && incremental && content instanceof Observer observer && !observer.isConsistent()) {
+				throw new IllegalStateException("Inconsistent incremental update at " + Position.of(node));
+			}
+			long[] dependents = dependentsOf(Position.rowOf(node), Position.columnOf(node));
+			if (dependents.length == 0 && _lazyEvaluation) {
+				// Nothing reads the node, so its value isn't needed yet
+				return;
+			}
+			// Not taken down if nothing read the node when the change started, in which case it counts as changed
+			Literal oldValue = _change._oldValues.get(node);
+			Literal newValue = valueAt(node);
+			if (oldValue != null && oldValue.hasSameValue(newValue)) {
+				return;
+			}
+			// Every position is reached before any formula is told, as a formula sitting at several of them is
+			// only told once, and its value at the others must still be the one from before
+			for (long dependent: dependents) {
+				reach(dependent);
+			}
+			Position position = Position.of(node);
+			Set<Content> notified = Collections.newSetFromMap(new IdentityHashMap<Content, Boolean>());
+			for (long dependent: dependents) {
+				Content dependentContent = contentAt(dependent);
+				if (!notified.add(dependentContent) || !(dependentContent instanceof Observer observer)
+						|| _stale.contains(dependentContent) || _staleOrigins.contains(dependentContent)) {
+					// Formulas about to be recomputed anyway are spared the update
+					continue;
+				}
+				// Formulas written as part of the change may have seen some of the new values already
+				if (incremental && oldValue != null && !_change._origins.contains(dependent)
+						&& observer.update(position, oldValue, newValue)) {
+					_incrementalUpdateCount++;
+				}
+				else {
+					_stale.add(dependentContent);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A snapshot of the subscriptions of the graph, telling live formulas from orphaned ones.
+	 */
+	public static class SubscriptionStats {
+
+		/** The number of subscribed formulas still sitting where they are subscribed. */
+		private final int _liveObservers;
+
+		/** The number of subscribed formulas no longer sitting where they are subscribed. */
+		private final int _orphanedObservers;
+
+		/** The number of indexed ranges whose formula no longer reads them. */
+		private final int _orphanedRanges;
+
+		/**
+		 * Initializes a new snapshot with the given figures.
+		 *
+		 * @param liveObservers     The number of live formulas.
+		 * @param orphanedObservers The number of orphaned formulas.
+		 * @param orphanedRanges    The number of orphaned ranges.
+		 */
+		private SubscriptionStats(int liveObservers, int orphanedObservers, int orphanedRanges) {
+			_liveObservers = liveObservers;
+			_orphanedObservers = orphanedObservers;
+			_orphanedRanges = orphanedRanges;
+		}
+
+		/**
+		 * Gets the number of subscribed formulas still sitting where they are subscribed.
+		 *
+		 * @return The number of live formulas.
+		 */
+		public int getLiveObservers() {
+			return _liveObservers;
+		}
+
+		/**
+		 * Gets the number of subscribed formulas no longer sitting where they are subscribed.
+		 *
+		 * @return The number of orphaned formulas.
+		 */
+		public int getOrphanedObservers() {
+			return _orphanedObservers;
+		}
+
+		/**
+		 * Gets the number of indexed ranges whose formula no longer reads them.
+		 *
+		 * @return The number of orphaned ranges.
+		 */
+		public int getOrphanedRanges() {
+			return _orphanedRanges;
+		}
+
+		/**
+		 * Returns a string representation of the snapshot.
+		 *
+		 * @return A string with every figure of the snapshot.
+		 */
+		@Override
+		public String toString() {
+			return "live=" + _liveObservers + " orphaned=" + _orphanedObservers + " orphanedRanges=" + _orphanedRanges;
+		}
+
+	}
+
+	/**
+	 * A range of positions read by a formula.
+	 */
+	private static class Range implements Serializable {
+
+		/** The row of the first position of the range. */
+		private final int _fromRow;
+
+		/** The column of the first position of the range. */
+		private final int _fromColumn;
+
+		/** The row of the last position of the range. */
+		private final int _toRow;
+
+		/** The column of the last position of the range. */
+		private final int _toColumn;
+
+		/** The packed position of the formula reading the range. */
+		private final long _dependent;
+
+		/** The serial version UID for ensuring version compatibility during serialization. */
+		@Serial
+		private static final long serialVersionUID = 202610171501L;
+
+		/**
+		 * Creates a new range read by the given formula.
+		 *
+		 * @param bounds    The first row, first column, last row and last column of the range.
+		 * @param dependent The packed position of the formula reading the range.
+		 */
+		private Range(int[] bounds, long dependent) {
+			_fromRow = bounds[0];
+			_fromColumn = bounds[1];
+			_toRow = bounds[2];
+			_toColumn = bounds[3];
+			_dependent = dependent;
+		}
+
+		/**
+		 * Checks if the range holds the given coordinates.
+		 *
+		 * @param row    The row to check.
+		 * @param column The column to check.
+		 * @return {@code true} if the coordinates are inside the range, {@code false} otherwise.
+		 */
+		private boolean contains(int row, int column) {
+			return row >= _fromRow && row <= _toRow && column >= _fromColumn && column <= _toColumn;
+		}
+
+		/**
+		 * Checks if the range lies on a single row.
+		 *
+		 * @return {@code true} if the range lies on a single row, {@code false} otherwise.
+		 */
+		private boolean onSingleRow() {
+			return _fromRow == _toRow;
+		}
+
+	}
+
+	/**
+	 * Creates a new, empty, dependency graph for the given spreadsheet.
+	 *
+	 * @param spreadsheet The spreadsheet whose formulas are tracked.
+	 */
+	DependencyGraph(Spreadsheet spreadsheet) {
+		_spreadsheet = spreadsheet;
+	}
+
+	/**
+	 * Records the content just written to a position, replacing the edges of whatever was there before.
+	 * A cycle the position was caught in is cleared, and the cycles the position and the rest of that
+	 * cycle are caught in now are flagged, before anything is evaluated.
+	 *
+	 * @param row     The row of the position.
+	 * @param column  The column of the position.
+	 * @param content The content written to the position.
+	 */
+	void setContent(int row, int column, Content content) {
+		long position = Position.pack(row, column);
+		// Literals read nothing, so writing one where there was no formula leaves the graph as it is
+		if (content instanceof Literal && !_precedents.containsKey(position)) {
+			return;
+		}
+		removeRanges(position);
+		Set<Long> brokenCycle = _cycles.get(position);
+		if (brokenCycle != null) {
+			for (long member: brokenCycle) {
+				flip(member);
+				_cycles.remove(member);
+				_released.add(member);
+				_spreadsheet.getCell(Position.rowOf(member), Position.columnOf(member)).setCyclic(false);
+			}
+		}
+		DependencyVisitor visitor = new DependencyVisitor(_spreadsheet);
+		content.accept(visitor);
+		if (!visitor.getRanges().isEmpty()) {
+			subscribe(position, content);
+			List<Range> ranges = new ArrayList<Range>();
+			for (int[] bounds: visitor.getRanges()) {
+				Range range = new Range(bounds, position);
+				ranges.add(range);
+				if (range.onSingleRow()) {
+					_rowRanges.computeIfAbsent(range._fromRow, key -> new ArrayList<Range>()).add(range);
+				}
+				else {
+					_columnRanges.computeIfAbsent(range._fromColumn, key -> new ArrayList<Range>()).add(range);
+				}
+			}
+			_precedents.put(position, ranges);
+			_formulasByRow.add(position);
+			_formulasByColumn.add(Position.pack(column, row));
+		}
+		if (brokenCycle != null) {
+			// What is left of the cycle can only hold cycles not going through the position
+			Set<Long> rest = new HashSet<Long>(brokenCycle);
+			rest.remove(position);
+			flagCycles(rest);
+		}
+		flagCycle(position);
+		if (_precedents.containsKey(position)) {
+			rank(position);
+		}
+		if (brokenCycle != null) {
+			// The formulas of the cycle read each other in order now, unless they are still caught in a cycle
+			for (long member: brokenCycle) {
+				raiseDependents(member);
+			}
+		}
+		if (!_lazyEvaluation) {
+			// Settles the value of lazy formulas right away, so formulas recomputed in parallel never race to settle it
+			content.getValue();
+		}
+	}
+
+	/**
+	 * Checks if the given position is caught in a cycle of formulas reading each other.
+	 *
+	 * @param row    The row of the position.
+	 * @param column The column of the position.
+	 * @return {@code true} if the position is caught in a cycle, {@code false} otherwise.
+	 */
+	boolean isCyclic(int row, int column) {
+		return !_cycles.isEmpty() && _cycles.containsKey(Position.pack(row, column));
+	}
+
+	/**
+	 * Prepares a change to the given position, to be written next. The value of the position is taken down
+	 * before anything changes, so the formulas reading it can later be told how it went from old to new.
+	 * The formulas depending on it are only reached as the change is recalculated.
+	 *
+	 * @param row    The row of the position about to change.
+	 * @param column The column of the position about to change.
+	 * @return The prepared change, or null if no formula depends on the position.
+	 */
+	Change prepareChange(int row, int column) {
+		if (dependentsOf(row, column).length == 0) {
+			return null;
+		}
+		return prepareChange(null, row, column, null);
+	}
+
+	/**
+	 * Adds the given position, to be written next, to a change spanning several positions. Values are
+	 * only taken down the first time a position is written, so they stay the ones from before the change
+	 * started, as nothing is recalculated until the whole change is. Literals written where nothing reads
+	 * them are left out, as whatever reads them later sees the new value when it is written.
+	 *
+	 * @param change  The change to add the position to, or null to start a new one.
+	 * @param row     The row of the position about to change.
+	 * @param column  The column of the position about to change.
+	 * @param content The content about to be written, or null if it is not known.
+	 * @return The change, possibly holding the position, or null if it was not started and had no need to.
+	 */
+	Change prepareChange(Change change, int row, int column, Content content) {
+		long origin = Position.pack(row, column);
+		boolean read = dependentsOf(row, column).length > 0;
+		if (content instanceof Literal && (change == null || !change._origins.contains(origin)) && !read) {
+			return change;
+		}
+		if (change == null) {
+			change = new Change();
+		}
+		// A value nothing reads is never compared, so a lazy formula there isn't settled for it. A position whose
+		// cycle flag already flipped during the change was taken down then, before it changed
+		if (change._origins.add(origin) && !change._oldValues.containsKey(origin) && !_flipped.containsKey(origin)
+				&& (read || !_lazyEvaluation)) {
+			change._oldValues.put(origin, valueAt(origin));
+		}
+		return change;
+	}
+
+	/**
+	 * Recalculates the formulas affected by a change, once the new content has been written.
+	 * The formulas are visited in order of rank, so each one is settled exactly once and only after
+	 * everything it reads. A formula is told about each value it reads that actually changed, which lets
+	 * it update itself incrementally; the ones that can't are recomputed from scratch. Formulas whose
+	 * inputs kept their values are left alone, and so is everything past them. Formulas caught in a cycle
+	 * read each other as errors, so their values don't change while it lasts, and are settled once each;
+	 * a change that runs into a cycle recomputes every formula whose inputs changed from there on.
+	 * <p>
+	 * Formulas written as part of a change that read anything the change affects are always recomputed,
+	 * as they may already have seen some of the new values when they were written. So are the formulas of a
+	 * cycle the change cleared, as they were not kept up to date while they read as errors, and the formulas
+	 * a recalculation cut short left unsettled.
+	 *
+	 * @param change The change prepared before the content was written, or null if nothing depends on it.
+	 */
+	void recalculate(Change change) {
+		Recalculation recalculation = startRecalculation(change);
+		while (recalculation != null && !recalculation.isDone()) {
+			recalculation.step();
+		}
+	}
+
+	/**
+	 * Starts recalculating the formulas affected by a change, once the new content has been written, the same
+	 * way {@link #recalculate(Change)} does, but leaves the formulas to be settled a step at a time, so the
+	 * recalculation may be cut short in between.
+	 *
+	 * @param change The change prepared before the content was written, or null if nothing depends on it.
+	 * @return The recalculation, or null if there is nothing to recalculate.
+	 */
+	Recalculation startRecalculation(Change change) {
+		if (change == null) {
+			return null;
+		}
+		_recalculationCount++;
+		Recalculation recalculation = new Recalculation(change);
+		// Positions whose cycle flag flipped changed without anything they read changing
+		for (Map.Entry<Long, Literal> entry: _flipped.entrySet()) {
+			if (entry.getValue() != null && !change._oldValues.containsKey(entry.getKey())) {
+				change._oldValues.put(entry.getKey(), entry.getValue());
+			}
+			recalculation.start(entry.getKey());
+		}
+		_flipped.clear();
+		for (long origin: change._origins) {
+			recalculation.start(origin);
+		}
+		// Formulas written while the values they read were changing may have seen any of them, even if those
+		// end up back where they started; values only change before the recalculation where they are written
+		// or flipped
+		for (long node: recalculation._reached) {
+			for (long dependent: dependentsOf(Position.rowOf(node), Position.columnOf(node))) {
+				if (dependent != node && change._origins.contains(dependent) && contentAt(dependent) instanceof Observer) {
+					recalculation._staleOrigins.add(contentAt(dependent));
+				}
+			}
+		}
+		for (long node: _released) {
+			if (contentAt(node) instanceof Observer) {
+				recalculation._staleOrigins.add(contentAt(node));
+			}
+			recalculation.start(node);
+		}
+		_released.clear();
+		return recalculation;
+	}
+
+	/**
+	 * Turns the consistency checks on or off. While they are on, every formula is checked against a
+	 * full recomputation once it is settled, and a mismatch is reported with an
+	 * {@link IllegalStateException}. Meant for testing, as it defeats the point of updating incrementally.
+	 *
+	 * @param enabled Whether the checks are on.
+	 */
+	public void setConsistencyChecks(boolean enabled) {
+		_consistencyChecks = enabled;
+	}
+
+	/**
+	 * Turns the parallel recalculation on or off. It is off unless turned on here. While it is on, the
+	 * formulas of a change are grouped into levels that don't read each other, and the formulas of each
+	 * level that must be recomputed in full are recomputed in parallel on the common {@link ForkJoinPool},
+	 * as long as there are at least {@value #PARALLEL_THRESHOLD} of them. Values are passed on to the next
+	 * level one node at a time, so the results are the same either way. Changes that run into a cycle are
+	 * always recalculated on a single thread.
+	 *
+	 * @param enabled Whether the recalculation runs in parallel.
+	 */
+	public void setParallel(boolean enabled) {
+		_parallel = enabled;
+	}
+
+	/**
+	 * Checks if the parallel recalculation is on.
+	 *
+	 * @return {@code true} if the recalculation runs in parallel, {@code false} otherwise.
+	 */
+	public boolean isParallel() {
+		return _parallel;
+	}
+
+	/**
+	 * Turns the lazy evaluation on or off. While it is on, formulas are settled the first time they are
+	 * read after a change instead of right away, so a formula nothing reads is neither evaluated when it is
+	 * written nor recomputed when a change reaches it, however many changes do. Recomputing a formula in
+	 * full then only marks it stale, so the parallel recalculation never evaluates anything, and values are
+	 * read one node at a time as changes are passed on. Turning it off settles every formula right away.
+	 * It is off by default.
+	 *
+	 * @param enabled Whether formulas are settled when read.
+	 */
+	public void setLazyEvaluation(boolean enabled) {
+		if (!enabled && _lazyEvaluation) {
+			// Settled while still lazy, so chains are settled in order, and nothing left stale can be
+			// settled by two formulas recomputed in parallel
+			for (Content content: _subscribers.values()) {
+				content.getValue();
+			}
+		}
+		_lazyEvaluation = enabled;
+	}
+
+	/**
+	 * Settles the stale formulas the given formula reads, directly or not, before it is evaluated, while the
+	 * evaluation is lazy. They are found by searching backward from what the formula reads, with an explicit
+	 * stack, and settled deepest first, so each one only reads values already settled and a stale chain of
+	 * any length is settled without growing the call stack. Formulas caught in a cycle read as errors, so
+	 * the search doesn't go through them. Does nothing while the evaluation is eager, as formulas are then
+	 * settled in order as the changes reaching them are recalculated.
+	 *
+	 * @param content The formula about to be evaluated.
+	 */
+	public void settlePrecedents(Content content) {
+		if (!_lazyEvaluation) {
+			return;
+		}
+		DependencyVisitor visitor = new DependencyVisitor(_spreadsheet);
+		content.accept(visitor);
+		Deque<Long> pending = new ArrayDeque<Long>();
+		for (int[] bounds: visitor.getRanges()) {
+			for (long precedent: formulasIn(bounds[0], bounds[1], bounds[2], bounds[3])) {
+				if (isStale(precedent)) {
+					pending.push(precedent);
+				}
+			}
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+		Set<Long> visited = new HashSet<Long>();
+		Set<Long> settled = new HashSet<Long>();
+		while (!pending.isEmpty()) {
+			long node = pending.peek();
+			if (visited.add(node)) {
+				// Stays on the stack until every stale formula it reads is settled
+				for (long precedent: precedentsOf(node)) {
+					if (!visited.contains(precedent) && isStale(precedent)) {
+						pending.push(precedent);
+					}
+				}
+				continue;
+			}
+			pending.pop();
+			if (settled.add(node)) {
+				contentAt(node).getValue();
+			}
+		}
+	}
+
+	/**
+	 * Checks if the formula at the given node must be evaluated again before it is read, and may be.
+	 *
+	 * @param node The packed position of the node.
+	 * @return {@code true} if the formula is stale and not caught in a cycle, {@code false} otherwise.
+	 */
+	private boolean isStale(long node) {
+		return !_cycles.containsKey(node) && contentAt(node).isStale();
+	}
+
+	/**
+	 * Checks if the lazy evaluation is on.
+	 *
+	 * @return {@code true} if formulas are settled when read, {@code false} otherwise.
+	 */
+	public boolean isLazyEvaluation() {
+		return _lazyEvaluation;
+	}
+
+	/**
+	 * Called by a formula that put a computation off until it is read.
+	 */
+	public void countDeferredComputation() {
+		_deferredComputationCount.increment();
+	}
+
+	/**
+	 * Called by a formula that carried out a computation it had put off, as it was read.
+	 */
+	public void countLazyComputation() {
+		_lazyComputationCount.increment();
+	}
+
+	/**
+	 * Retrieves the number of computations formulas put off until they were read.
+	 *
+	 * @return The number of deferred computations.
+	 */
+	public long getDeferredComputationCount() {
+		return _deferredComputationCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of computations put off that were carried out once the formula was read.
+	 *
+	 * @return The number of lazy computations.
+	 */
+	public long getLazyComputationCount() {
+		return _lazyComputationCount.sum();
+	}
+
+	/**
+	 * Retrieves the number of computations the lazy evaluation avoided: the ones put off that were never
+	 * carried out, because nothing read the formula before the next change reached it, or at all yet.
+	 *
+	 * @return The number of avoided computations.
+	 */
+	public long getAvoidedComputationCount() {
+		return getDeferredComputationCount() - getLazyComputationCount();
+	}
+
+	/**
+	 * Retrieves the number of formulas recomputed since the graph was created.
+	 *
+	 * @return The number of recomputed formulas.
+	 */
+	public long getRecomputeCount() {
+		return _recomputeCount;
+	}
+
+	/**
+	 * Retrieves the number of updates formulas absorbed incrementally, without being recomputed.
+	 *
+	 * @return The number of incremental updates.
+	 */
+	public long getIncrementalUpdateCount() {
+		return _incrementalUpdateCount;
+	}
+
+	/**
+	 * Retrieves the number of changes that had formulas depending on them.
+	 *
+	 * @return The number of recalculations.
+	 */
+	public long getRecalculationCount() {
+		return _recalculationCount;
+	}
+
+	/**
+	 * Retrieves the number of formulas that read at least one position of the spreadsheet.
+	 *
+	 * @return The number of formulas in the graph.
+	 */
+	public int size() {
+		return _precedents.size();
+	}
+
+	/**
+	 * Takes a snapshot of the subscriptions of the graph. A subscribed formula is live while it still
+	 * sits at one of the positions it is subscribed at, and orphaned otherwise; a range is orphaned if it
+	 * is still indexed although the formula reading it no longer is. Both orphan counts are zero unless
+	 * something was written to a spreadsheet without going through its graph.
+	 *
+	 * @return The statistics of the subscriptions.
+	 */
+	public SubscriptionStats subscriptionStats() {
+		Set<Content> live = Collections.newSetFromMap(new IdentityHashMap<Content, Boolean>());
+		for (Map.Entry<Long, Content> entry: _subscribers.entrySet()) {
+			if (contentAt(entry.getKey()) == entry.getValue()) {
+				live.add(entry.getValue());
+			}
+		}
+		int orphanedRanges = 0;
+		for (Map<Integer, List<Range>> index: Arrays.asList(_rowRanges, _columnRanges)) {
+			for (List<Range> ranges: index.values()) {
+				for (Range range: ranges) {
+					List<Range> precedents = _precedents.get(range._dependent);
+					if (precedents == null || !precedents.contains(range)) {
+						orphanedRanges++;
+					}
+				}
+			}
+		}
+		return new SubscriptionStats(live.size(), _subscriptionCounts.size() - live.size(), orphanedRanges);
+	}
+
+	/**
+	 * Finds the formulas that read the given position directly.
+	 *
+	 * @param row    The row of the position.
+	 * @param column The column of the position.
+	 * @return The packed positions of the formulas, without repetitions.
+	 */
+	private long[] dependentsOf(int row, int column) {
+		List<Range> rowRanges = _rowRanges.get(row);
+		List<Range> columnRanges = _columnRanges.get(column);
+		if (rowRanges == null && columnRanges == null) {
+			return new long[0];
+		}
+		long[] dependents = new long[(rowRanges == null ? 0 : rowRanges.size())
+				+ (columnRanges == null ? 0 : columnRanges.size())];
+		int count = 0;
+		for (List<Range> ranges: Arrays.asList(rowRanges, columnRanges)) {
+			if (ranges == null) {
+				continue;
+			}
+			for (Range range: ranges) {
+				if (range.contains(row, column)) {
+					dependents[count++] = range._dependent;
+				}
+			}
+		}
+		// A formula may read the same position through several of its ranges
+		Arrays.sort(dependents, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || dependents[distinct - 1] != dependents[i]) {
+				dependents[distinct++] = dependents[i];
+			}
+		}
+		return Arrays.copyOf(dependents, distinct);
+	}
+
+	/**
+	 * Retrieves the content at the given node.
+	 *
+	 * @param node The packed position of the node.
+	 * @return The content at the node.
+	 */
+	private Content contentAt(long node) {
+		return _spreadsheet.getContent(Position.rowOf(node), Position.columnOf(node));
+	}
+
+	/**
+	 * Retrieves the value at the given node, as the formulas reading it see it.
+	 *
+	 * @param node The packed position of the node.
+	 * @return The value at the node.
+	 */
+	private Literal valueAt(long node) {
+		return _spreadsheet.getValue(Position.rowOf(node), Position.columnOf(node));
+	}
+
+	/**
+	 * Retrieves the value at the given node as it was settled last, without evaluating anything.
+	 *
+	 * @param node The packed position of the node.
+	 * @return The value at the node, or null if its formula must be evaluated again before it is read.
+	 */
+	private Literal settledValueAt(long node) {
+		if (!_cycles.containsKey(node) && contentAt(node).isStale()) {
+			return null;
+		}
+		return valueAt(node);
+	}
+
+	/**
+	 * Takes down the value of a position whose cycle flag is about to flip, unless it was taken down already.
+	 *
+	 * @param node The packed position of the node.
+	 */
+	private void flip(long node) {
+		if (!_flipped.containsKey(node)) {
+			_flipped.put(node, settledValueAt(node));
+		}
+	}
+
+	/**
+	 * Retrieves the rank of the given node.
+	 *
+	 * @param node The packed position of the node.
+	 * @return The rank of the formula at the node, or the lowest rank if there is no formula reading something there.
+	 */
+	private long rankOf(long node) {
+		Long rank = _ranks.get(node);
+		return rank == null ? Long.MIN_VALUE : rank;
+	}
+
+	/**
+	 * Checks if two nodes are caught in the same cycle, in which case their ranks don't need to be in order.
+	 *
+	 * @param node  The packed position of a node.
+	 * @param other The packed position of the other node.
+	 * @return {@code true} if both nodes are caught in the same cycle, {@code false} otherwise.
+	 */
+	private boolean inSameCycle(long node, long other) {
+		Set<Long> cycle = _cycles.get(node);
+		return cycle != null && cycle.contains(other);
+	}
+
+	/**
+	 * Ranks the formula just written to the given position between the formulas it reads and the ones reading
+	 * it. If there is no room left in between, it is ranked right above what it reads, and the formulas
+	 * reading it are raised above it.
+	 *
+	 * @param position The packed position of the formula.
+	 */
+	private void rank(long position) {
+		long lowest = Long.MIN_VALUE;
+		for (long precedent: precedentsOf(position)) {
+			if (!inSameCycle(position, precedent)) {
+				lowest = Math.max(lowest, rankOf(precedent));
+			}
+		}
+		long highest = Long.MAX_VALUE;
+		for (long dependent: dependentsOf(Position.rowOf(position), Position.columnOf(position))) {
+			if (!inSameCycle(position, dependent)) {
+				highest = Math.min(highest, rankOf(dependent));
+			}
+		}
+		long rank;
+		if (lowest == Long.MIN_VALUE) {
+			rank = highest == Long.MAX_VALUE ? 0 : highest - RANK_GAP;
+		}
+		else if (highest == Long.MAX_VALUE || highest - lowest < 2) {
+			rank = lowest + RANK_GAP;
+		}
+		else {
+			rank = lowest + (highest - lowest) / 2;
+		}
+		_ranks.put(position, rank);
+		raiseDependents(position);
+	}
+
+	/**
+	 * Raises the formulas reading the given node above it, and the ones reading those above them, as far as
+	 * needed to keep every formula ranked above what it reads.
+	 *
+	 * @param start The packed position of the node.
+	 */
+	private void raiseDependents(long start) {
+		Deque<Long> pending = new ArrayDeque<Long>();
+		pending.add(start);
+		while (!pending.isEmpty()) {
+			long node = pending.poll();
+			long rank = rankOf(node);
+			for (long dependent: dependentsOf(Position.rowOf(node), Position.columnOf(node))) {
+				if (!inSameCycle(node, dependent) && rankOf(dependent) <= rank) {
+					_ranks.put(dependent, rank + RANK_GAP);
+					pending.add(dependent);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flags the cycle the given position is caught in, if there is one. Whether the position reaches itself
+	 * is found by searching forward from it, through the formulas reading it, and backward, through the
+	 * formulas it reads, one node at a time on each side, and stops as soon as either side runs out: a
+	 * position nothing reads, or one reading no formula, can't be caught in a cycle, and is let go after a
+	 * single step. The positions of the cycle are the ones both reachable from the position and reaching it.
+	 *
+	 * @param start The packed position to check.
+	 */
+	private void flagCycle(long start) {
+		if (!_precedents.containsKey(start)) {
+			// Only formulas reading something can be caught in a cycle
+			return;
+		}
+		Set<Long> forward = new HashSet<Long>(Set.of(start));
+		Set<Long> backward = new HashSet<Long>(Set.of(start));
+		Deque<Long> forwardPending = new ArrayDeque<Long>(forward);
+		Deque<Long> backwardPending = new ArrayDeque<Long>(backward);
+		boolean cyclic = false;
+		while (!cyclic && !forwardPending.isEmpty() && !backwardPending.isEmpty()) {
+			long node = forwardPending.poll();
+			for (long dependent: dependentsOf(Position.rowOf(node), Position.columnOf(node))) {
+				cyclic |= backward.contains(dependent);
+				if (forward.add(dependent)) {
+					forwardPending.add(dependent);
+				}
+			}
+			if (cyclic || forwardPending.isEmpty()) {
+				break;
+			}
+			node = backwardPending.poll();
+			for (long precedent: precedentsOf(node)) {
+				cyclic |= forward.contains(precedent);
+				if (backward.add(precedent)) {
+					backwardPending.add(precedent);
+				}
+			}
+		}
+		if (!cyclic) {
+			return;
+		}
+		// Completes both sides, as the cycle may stretch further than where the sides first met
+		while (!forwardPending.isEmpty()) {
+			long node = forwardPending.poll();
+			for (long dependent: dependentsOf(Position.rowOf(node), Position.columnOf(node))) {
+				if (forward.add(dependent)) {
+					forwardPending.add(dependent);
+				}
+			}
+		}
+		while (!backwardPending.isEmpty()) {
+			for (long precedent: precedentsOf(backwardPending.poll())) {
+				if (backward.add(precedent)) {
+					backwardPending.add(precedent);
+				}
+			}
+		}
+		forward.retainAll(backward);
+		flag(forward);
+	}
+
+	/**
+	 * Flags every cycle among the given positions, considering only the formulas they read among themselves.
+	 * The cycles are found in a single pass of Tarjan's algorithm, run with an explicit stack so the number
+	 * of positions isn't bounded by the depth of the call stack.
+	 *
+	 * @param nodes The packed positions to check.
+	 */
+	private void flagCycles(Set<Long> nodes) {
+		Map<Long, long[]> successors = new HashMap<Long, long[]>();
+		for (long node: nodes) {
+			successors.put(node, Arrays.stream(dependentsOf(Position.rowOf(node), Position.columnOf(node)))
+					.filter(nodes::contains).toArray());
+		}
+		Map<Long, Integer> indices = new HashMap<Long, Integer>();
+		Map<Long, Integer> lowLinks = new HashMap<Long, Integer>();
+		Deque<Long> open = new ArrayDeque<Long>();
+		Set<Long> opened = new HashSet<Long>();
+		Deque<long[]> visits = new ArrayDeque<long[]>();
+		for (long root: nodes) {
+			if (indices.containsKey(root)) {
+				continue;
+			}
+			// Each visit holds the node visited and how many of its successors were visited already
+			visits.push(new long[] { root, 0 });
+			while (!visits.isEmpty()) {
+				long[] visit = visits.peek();
+				long node = visit[0];
+				if (visit[1] == 0 && !indices.containsKey(node)) {
+					indices.put(node, indices.size());
+					lowLinks.put(node, indices.get(node));
+					open.push(node);
+					opened.add(node);
+				}
+				long[] next = successors.get(node);
+				if (visit[1] < next.length) {
+					long successor = next[(int) visit[1]++];
+					if (!indices.containsKey(successor)) {
+						visits.push(new long[] { successor, 0 });
+					}
+					else if (opened.contains(successor)) {
+						lowLinks.put(node, Math.min(lowLinks.get(node), indices.get(successor)));
+					}
+					continue;
+				}
+				visits.pop();
+				if (!visits.isEmpty()) {
+					long parent = visits.peek()[0];
+					lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+				}
+				if (lowLinks.get(node).equals(indices.get(node))) {
+					Set<Long> component = new HashSet<Long>();
+					long member;
+					do {
+						member = open.pop();
+						opened.remove(member);
+						component.add(member);
+					} while (member != node);
+					if (component.size() > 1 || Arrays.binarySearch(next, node) >= 0) {
+						flag(component);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flags the given positions as a cycle, and their cells as caught in it.
+	 *
+	 * @param cycle The packed positions of the cycle.
+	 */
+	private void flag(Set<Long> cycle) {
+		for (long member: cycle) {
+			if (!_cycles.containsKey(member)) {
+				flip(member);
+			}
+			_cycles.put(member, cycle);
+			_spreadsheet.getCell(Position.rowOf(member), Position.columnOf(member)).setCyclic(true);
+		}
+	}
+
+	/**
+	 * Finds the formulas the formula at the given position reads directly. Positions holding anything
+	 * but a formula that reads something are left out, as no cycle can go through them. The formulas of
+	 * each range are looked up in the sorted formulas, so large ranges holding few of them cost little.
+	 *
+	 * @param node The packed position of the formula.
+	 * @return The packed positions of the formulas read.
+	 */
+	private List<Long> precedentsOf(long node) {
+		List<Long> precedents = new ArrayList<Long>();
+		for (Range range: _precedents.getOrDefault(node, List.of())) {
+			precedents.addAll(formulasIn(range._fromRow, range._fromColumn, range._toRow, range._toColumn));
+		}
+		return precedents;
+	}
+
+	/**
+	 * Finds the formulas reading something inside a range that spans a single row or a single column.
+	 *
+	 * @param fromRow    The row of the first position of the range.
+	 * @param fromColumn The column of the first position of the range.
+	 * @param toRow      The row of the last position of the range.
+	 * @param toColumn   The column of the last position of the range.
+	 * @return The packed positions of the formulas, in order.
+	 */
+	private List<Long> formulasIn(int fromRow, int fromColumn, int toRow, int toColumn) {
+		if (fromRow == toRow) {
+			return new ArrayList<Long>(_formulasByRow.subSet(Position.pack(fromRow, fromColumn), true,
+					Position.pack(toRow, toColumn), true));
+		}
+		List<Long> formulas = new ArrayList<Long>();
+		for (long formula: _formulasByColumn.subSet(Position.pack(fromColumn, fromRow), true,
+				Position.pack(toColumn, toRow), true)) {
+			formulas.add(Position.pack(Position.columnOf(formula), Position.rowOf(formula)));
+		}
+		return formulas;
+	}
+
+	/**
+	 * Subscribes the formula written to the given position to the changes of what it reads.
+	 * The formula is attached when it is first subscribed, as the same formula may sit at several positions.
+	 *
+	 * @param position The packed position of the formula.
+	 * @param content  The formula.
+	 */
+	private void subscribe(long position, Content content) {
+		_subscribers.put(position, content);
+		if (_subscriptionCounts.merge(content, 1, Integer::sum) == 1) {
+			content.attach();
+		}
+	}
+
+	/**
+	 * Unsubscribes the formula at the given position, if there is one. The formula is detached once it is
+	 * no longer subscribed at any position.
+	 *
+	 * @param position The packed position of the formula.
+	 */
+	private void unsubscribe(long position) {
+		Content content = _subscribers.remove(position);
+		if (content == null) {
+			return;
+		}
+		int count = _subscriptionCounts.get(content) - 1;
+		if (count > 0) {
+			_subscriptionCounts.put(content, count);
+			return;
+		}
+		_subscriptionCounts.remove(content);
+		content.detach();
+	}
+
+	/**
+	 * Removes the ranges read by the formula at the given position, if there is one, and unsubscribes it.
+	 *
+	 * @param position The packed position of the formula.
+	 */
+	private void removeRanges(long position) {
+		unsubscribe(position);
+		List<Range> ranges = _precedents.remove(position);
+		if (ranges == null) {
+			return;
+		}
+		_ranks.remove(position);
+		_formulasByRow.remove(position);
+		_formulasByColumn.remove(Position.pack(Position.columnOf(position), Position.rowOf(position)));
+		for (Range range: ranges) {
+			Map<Integer, List<Range>> index = range.onSingleRow() ? _rowRanges : _columnRanges;
+			int key = range.onSingleRow() ? range._fromRow : range._fromColumn;
+			List<Range> indexed = index.get(key);
+			indexed.remove(range);
+			if (indexed.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package xxl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xxl.core.content.Reference;
+import xxl.core.content.function.Function;
+import xxl.core.content.literal.Literal;
+
+/**
+ * A visitor that collects the ranges of positions a content reads from a given {@link Spreadsheet}.
+ * Each range spans a single row or a single column, and a lone reference is a range of one position.
+ * Ranges of other spreadsheets are left out, as the contents of a cut buffer still point at the
+ * spreadsheet they were copied from.
+ */
+public class DependencyVisitor {
+
+	/** The spreadsheet whose ranges are collected. */
+	private final Spreadsheet _spreadsheet;
+
+	/** The collected ranges, each one as its first row, first column, last row and last column. */
+	private final List<int[]> _ranges = new ArrayList<int[]>();
+
+	/**
+	 * Creates a new DependencyVisitor collecting the ranges read from the specified spreadsheet.
+	 *
+	 * @param spreadsheet The spreadsheet whose ranges are collected.
+	 */
+	DependencyVisitor(Spreadsheet spreadsheet) {
+		_spreadsheet = spreadsheet;
+	}
+
+	/**
+	 * Visits a literal content, which reads no position.
+	 *
+	 * @param literal The literal content to visit.
+	 */
+	public void visit(Literal literal) {
+		// Nothing happens, literals don't depend on anything
+	}
+
+	/**
+	 * Visits a reference content, collecting the position it refers to.
+	 *
+	 * @param reference The reference content to visit.
+	 */
+	public void visit(Reference reference) {
+		if (reference.getSpreadsheet() == _spreadsheet) {
+			Position position = reference.getPosition();
+			addRange(position.getRow(), position.getColumn(), position.getRow(), position.getColumn());
+		}
+	}
+
+	/**
+	 * Visits a position read by a function straight from its coordinates, collecting it.
+	 *
+	 * @param spreadsheet The spreadsheet the position belongs to.
+	 * @param row         The row of the position.
+	 * @param column      The column of the position.
+	 */
+	public void visit(Spreadsheet spreadsheet, int row, int column) {
+		if (spreadsheet == _spreadsheet) {
+			addRange(row, column, row, column);
+		}
+	}
+
+	/**
+	 * Visits a function content. The functions that read positions hand their arguments over
+	 * to this visitor themselves.
+	 *
+	 * @param function The function content to visit.
+	 */
+	public void visit(Function function) {
+		// Nothing happens, the arguments are visited on their own
+	}
+
+	/**
+	 * Visits an interval read by a function, collecting its whole range.
+	 *
+	 * @param interval The interval to visit.
+	 */
+	public void visit(Interval interval) {
+		if (interval.getLinkedSpreadsheet() == _spreadsheet) {
+			Position first = interval.getFirstPosition();
+			Position last = interval.getLastPosition();
+			addRange(first.getRow(), first.getColumn(), last.getRow(), last.getColumn());
+		}
+	}
+
+	/**
+	 * Retrieves the ranges collected so far.
+	 *
+	 * @return The collected ranges, each one as its first row, first column, last row and last column.
+	 */
+	List<int[]> getRanges() {
+		return _ranges;
+	}
+
+	/**
+	 * Collects a range of positions.
+	 *
+	 * @param fromRow    The row of the first position.
+	 * @param fromColumn The column of the first position.
+	 * @param toRow      The row of the last position.
+	 * @param toColumn   The column of the last position.
+	 */
+	private void addRange(int fromRow, int fromColumn, int toRow, int toColumn) {
+		_ranges.add(new int[] { fromRow, fromColumn, toRow, toColumn });
+	}
+
+}
@@ -3,12 +3,11 @@ package xxl.core;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.ArrayList;
 
 import xxl.core.content.Content;
-import xxl.core.content.Observer;
 import xxl.core.exception.InvalidCellIntervalException;
+import xxl.core.storage.RangeAction;
 
 /**
  * The {@code Interval} class represents a rectangular interval or range of positions within a
@@ -102,48 +101,35 @@ public class Interval implements Serializable {
 	 * @return A string representation of the content within the interval.
 	 */
 	public String readInterval() {
-		String interval = new String("");
-		// If the Interval happens in a certain row, we'll iterate thru the columns of that row.
-		if (onSameRow()) {
-			for (int col = _firstPosition.getColumn(); col <= _lastPosition.getColumn(); col++) {
-				if (col != _firstPosition.getColumn()) {
-					interval += "\n";
-				}
-				interval += _linkedSpreadsheet.visualizeCellInPosition(new Position(_firstPosition.getRow(), col));
-			}
-		}
-		// Else, the Interval will happen in a certain column, so we'll instead iterate thru the rows.
-		else {
-			for (int row = _firstPosition.getRow(); row <= _lastPosition.getRow(); row++) {
-				if (row != _firstPosition.getRow()) {
-					interval += "\n";
-				}
-				interval += _linkedSpreadsheet.visualizeCellInPosition(new Position(row, _firstPosition.getColumn()));
-			}
-		}
-		return interval;
+		return readInterval(false);
 	}
 
 	/**
-	 * Checks if the interval is inside the spreadsheet's range.
+	 * Reads the content within the interval and returns it as a string, showing either the current values or
+	 * the values settled last, which are read without evaluating anything.
 	 *
-	 * @return {@code true} if the last position is inside the spreadsheet's range; {@code false} otherwise.
+	 * @param settled Whether the values settled last are shown.
+	 * @return A string representation of the content within the interval.
 	 */
-	public boolean isInsideSpreadsheet() {
-		return _lastPosition.isInsideSpreadsheet(_linkedSpreadsheet);
+	String readInterval(boolean settled) {
+		StringBuilder interval = new StringBuilder();
+		forEachCell((row, column, cell) -> {
+			if (interval.length() > 0) {
+				interval.append("\n");
+			}
+			interval.append(_linkedSpreadsheet.visualizeCell(row, column, cell, settled));
+			return true;
+		});
+		return interval.toString();
 	}
 
 	/**
-	 * Adds an observer to all cells within the interval and updates references within the cells.
+	 * Checks if the interval is inside the spreadsheet's range.
 	 *
-	 * @param observer The observer to be added to the cells.
+	 * @return {@code true} if the last position is inside the spreadsheet's range; {@code false} otherwise.
 	 */
-	public void addObserverToCells(Observer observer) {
-		ReferenceUpdateVisitor referenceUpdateVisitor = new ReferenceUpdateVisitor();
-		for (Cell cell: getCells()) {
-			cell.addObserver(observer);
-			cell.getContent().accept(referenceUpdateVisitor, observer);
-		}
+	public boolean isInsideSpreadsheet() {
+		return _lastPosition.isInsideSpreadsheet(_linkedSpreadsheet);
 	}
 
 	/**
@@ -152,10 +138,12 @@ public class Interval implements Serializable {
 	 * @return A list of cells corresponding to the positions.
 	 */
 	public List<Cell> getCells() {
-		List<Cell> cells = new ArrayList<Cell>();
-		for (Position position: getPositions()) {
-			cells.add(_linkedSpreadsheet.getCell(position));
-		}
+		List<Cell> cells = new ArrayList<Cell>(size());
+		forEachCell((row, column, cell) -> {
+			// Positions without a cell get one, as the caller may hold on to it
+			cells.add(cell != null ? cell : _linkedSpreadsheet.getCell(row, column));
+			return true;
+		});
 		return cells;
 	}
 
@@ -165,7 +153,32 @@ public class Interval implements Serializable {
 	 * @return A list of content elements derived from the cells.
 	 */
 	public List<Content> getContent() {
-		return getCells().stream().map(cell -> cell.getContent()).collect(Collectors.toList());
+		List<Content> contents = new ArrayList<Content>(size());
+		forEachCell((row, column, cell) -> contents.add(_linkedSpreadsheet.getContent(row, column, cell)));
+		return contents;
+	}
+
+	/**
+	 * Hands the value of every position of the interval, in order, to a {@link ValueScanner}.
+	 * The scan stops as soon as the scanner asks for it.
+	 *
+	 * @param scanner The scanner receiving the values.
+	 */
+	public void scanValues(ValueScanner scanner) {
+		_linkedSpreadsheet.scanValues(_firstPosition.getRow(), _firstPosition.getColumn(),
+				_lastPosition.getRow(), _lastPosition.getColumn(), scanner);
+	}
+
+	/**
+	 * Retrieves the number of positions within the interval.
+	 *
+	 * @return The number of positions of the interval.
+	 */
+	public int size() {
+		if (onSameRow()) {
+			return _lastPosition.getColumn() - _firstPosition.getColumn() + 1;
+		}
+		return _lastPosition.getRow() - _firstPosition.getRow() + 1;
 	}
 
 	/**
@@ -197,27 +210,23 @@ public class Interval implements Serializable {
 	}
 
 	/**
-	 * Returns a list of positions within the interval. The positions are generated based on the first
-	 * and last positions of the interval. If the interval spans multiple rows or columns, it provides
-	 * a list of all positions in that range.
+	 * Retrieves the row of the position at the given index of the interval.
 	 *
-	 * @return A list of {@link Position} objects representing the positions within the interval.
+	 * @param index The index of the position, starting at 0 for the first position.
+	 * @return The row of the position.
 	 */
-	List<Position> getPositions() {
-		List<Position> positions = new ArrayList<Position>();
-		if (onSameRow()) {
-			int row = _firstPosition.getRow();
-			for (int col = _firstPosition.getColumn(); col <= _lastPosition.getColumn(); col++) {
-				positions.add(new Position(row, col));
-			}
-		}
-		else {
-			int col = _firstPosition.getColumn();
-			for (int row = _firstPosition.getRow(); row <= _lastPosition.getRow(); row++) {
-				positions.add(new Position(row, col));
-			}
-		}
-		return positions;
+	int rowAt(int index) {
+		return onSameRow() ? _firstPosition.getRow() : _firstPosition.getRow() + index;
+	}
+
+	/**
+	 * Retrieves the column of the position at the given index of the interval.
+	 *
+	 * @param index The index of the position, starting at 0 for the first position.
+	 * @return The column of the position.
+	 */
+	int columnAt(int index) {
+		return onSameRow() ? _firstPosition.getColumn() + index : _firstPosition.getColumn();
 	}
 
 	/**
@@ -225,7 +234,7 @@ public class Interval implements Serializable {
 	 *
 	 * @return The {@link Spreadsheet} to which this interval is associated.
 	 */
-	Spreadsheet getLinkedSpreadsheet() {
+	public Spreadsheet getLinkedSpreadsheet() {
 		return _linkedSpreadsheet;
 	}
 
@@ -236,8 +245,8 @@ public class Interval implements Serializable {
 	 * @param content The {@link Content} to be pasted into all positions within the interval.
 	 */
 	void pasteContent(Content content) {
-		for (Position position: getPositions()) {
-			_linkedSpreadsheet.insertContent(position, content);
+		for (int index = 0; index < size(); index++) {
+			_linkedSpreadsheet.insertContent(rowAt(index), columnAt(index), content);
 		}
 	}
 
@@ -249,17 +258,14 @@ public class Interval implements Serializable {
 	 * @param cells The list of {@link Cell} objects containing the content to be pasted into the interval.
 	 */
 	void pasteContent(List<Cell> cells) {
-		List<Position> positions = getPositions();
-		int index = 0;		
-		for (Cell cell: cells) {
+		int size = Math.min(size(), cells.size());
+		for (int index = 0; index < size; index++) {
 			try {
-				Position currPosition = positions.get(index);
-				_linkedSpreadsheet.insertContent(currPosition, cell.getContent());
+				_linkedSpreadsheet.insertContent(rowAt(index), columnAt(index), cells.get(index).getContent());
 			}
 			catch (NullPointerException | IndexOutOfBoundsException e) {
 				// Will happen if our position is out of bounds. That's no issue - we'll just ignore that insertContent
 			}
-			index++;
 		}
 	}
 
@@ -304,6 +310,17 @@ public class Interval implements Serializable {
 		return positions;
 	}
 
+	/**
+	 * Visits every position of the interval, in order, handing the action the cell of each position,
+	 * or null if it has none.
+	 *
+	 * @param action The action to perform over each position.
+	 */
+	private void forEachCell(RangeAction<Cell> action) {
+		_linkedSpreadsheet.forEachCell(_firstPosition.getRow(), _firstPosition.getColumn(),
+				_lastPosition.getRow(), _lastPosition.getColumn(), action);
+	}
+
 	/**
 	 * Checks if the interval positions are on the same row.
 	 *
@@ -348,11 +365,9 @@ public class Interval implements Serializable {
 	 * @param toCopy The source interval from which content will be copied.
 	 */
 	private void copyContent(Interval toCopy) {
-		List<Position> positions = getPositions();
 		int index = 0;
 		for (Content content: toCopy.getContent()) {
-			Position currPosition = positions.get(index);
-			_linkedSpreadsheet.insertContent(currPosition, content);
+			_linkedSpreadsheet.insertContent(rowAt(index), columnAt(index), content);
 			index++;
 		}
 	}
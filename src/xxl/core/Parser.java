@@ -3,6 +3,8 @@ package xxl.core;
 import java.io.IOException;
 import java.io.FileReader;
 import java.io.BufferedReader;
+import java.util.HashMap;
+import java.util.Map;
 
 import xxl.app.exception.UnknownFunctionException;
 import xxl.core.content.Content;
@@ -12,6 +14,7 @@ import xxl.core.content.function.AverageFunction;
 import xxl.core.content.function.CoalesceFunction;
 import xxl.core.content.function.ConcatFunction;
 import xxl.core.content.function.DivFunction;
+import xxl.core.content.function.FormulaTemplate;
 import xxl.core.content.function.Function;
 import xxl.core.content.function.MulFunction;
 import xxl.core.content.function.ProductFunction;
@@ -33,6 +36,18 @@ public class Parser {
 
 	/** The spreadsheet to parse to. */
 	private Spreadsheet _spreadsheet;
+
+	/** The row of the position the content being parsed goes to, or 0 if it isn't known. */
+	private int _anchorRow;
+
+	/** The column of the position the content being parsed goes to, or 0 if it isn't known. */
+	private int _anchorColumn;
+
+	/** The templates of the binary functions parsed so far, keyed by their relative form. */
+	private final Map<String, FormulaTemplate> _templates = new HashMap<String, FormulaTemplate>();
+
+	/** The formulas read from a file so far, keyed by how they are written in it. */
+	private final Map<String, Content> _formulas = new HashMap<String, Content>();
 	
 	/**
 	 * Constructs a new Parser instance with no associated Spreadsheet.
@@ -60,9 +75,15 @@ public class Parser {
 	public Spreadsheet parseFile(String filename) throws IOException, UnrecognizedEntryException /* More Exceptions? */ {
 		try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
 			parseDimensions(reader);
-			String line;
-			while ((line = reader.readLine()) != null) {
-				parseLine(line);
+			_spreadsheet.beginBatch();
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					parseLine(line);
+				}
+			}
+			finally {
+				_spreadsheet.commitBatch();
 			}
 		}
 		return _spreadsheet;
@@ -137,15 +158,50 @@ public class Parser {
 		
 		if (components.length == 2) {
 			String[] address = components[0].split(";");
-			Content content = parseContent(components[1]);
-			Position cellPosition = new Position(Integer.parseInt(address[0]), Integer.parseInt(address[1]));
-			_spreadsheet.insertContent(cellPosition, content);
+			int row = Integer.parseInt(address[0]);
+			int column = Integer.parseInt(address[1]);
+			_spreadsheet.insertContent(row, column, parseEntry(row, column, components[1]));
 		}
 		else {
 			throw new UnrecognizedEntryException("Wrong format in line: " + line);
 		}
 	}
 
+	/**
+	 * Parses the content of an entry of a file, handing back the formula read earlier if one was written
+	 * the same way. Identical formulas, such as references to the same cell or functions of the same
+	 * interval, then sit as a single object at every position they were written to, which the dependency
+	 * graph of the spreadsheet subscribes once and updates once per change. A repeated formula is not even
+	 * parsed again, so it is never built nor evaluated twice. Literals are cheap to build, and are not kept.
+	 *
+	 * @param row                  The row of the position the content goes to.
+	 * @param column               The column of the position the content goes to.
+	 * @param contentSpecification The content as written in the file.
+	 * @return The parsed content.
+	 * @throws UnrecognizedEntryException If the content cannot be recognized or contain invalid syntax.
+	 */
+	private Content parseEntry(int row, int column, String contentSpecification) throws UnrecognizedEntryException {
+		boolean formula = contentSpecification.startsWith("=");
+		Content content = formula ? _formulas.get(contentSpecification) : null;
+		if (content != null) {
+			return content;
+		}
+		// Functions are anchored where they go, so the ones filled down a range share their template
+		_anchorRow = row;
+		_anchorColumn = column;
+		try {
+			content = parseContent(contentSpecification);
+		}
+		finally {
+			_anchorRow = 0;
+			_anchorColumn = 0;
+		}
+		if (formula) {
+			_formulas.put(contentSpecification, content);
+		}
+		return content;
+	}
+
 	/**
 	 * Parses the beginning of a content expression and returns the corresponding {@link Content}.
 	 *
@@ -179,7 +235,7 @@ public class Parser {
 		else {
 			try {
 				int val = Integer.parseInt(literalExpression);
-				return new LiteralInteger(val);
+				return LiteralInteger.valueOf(val);
 			} 
 			catch (NumberFormatException nfe) {
 				throw new UnrecognizedEntryException("Número inválido: " + literalExpression, nfe);
@@ -236,12 +292,17 @@ public class Parser {
 		String[] arguments = args.split(",");
 		Content arg0 = parseArgumentExpression(arguments[0]);
 		Content arg1 = parseArgumentExpression(arguments[1]);
+		FormulaTemplate template = new FormulaTemplate(new Content[] { arg0, arg1 }, _anchorRow, _anchorColumn);
+		FormulaTemplate shared = _templates.putIfAbsent(template.getSignature(), template);
+		if (shared != null) {
+			template = shared;
+		}
 		
 		return switch (functionName) {
-			case "ADD" -> new AddFunction(arg0, arg1);
-			case "SUB" -> new SubFunction(arg0, arg1);
-			case "MUL" -> new MulFunction(arg0, arg1);
-			case "DIV" -> new DivFunction(arg0, arg1);
+			case "ADD" -> new AddFunction(template, _anchorRow, _anchorColumn);
+			case "SUB" -> new SubFunction(template, _anchorRow, _anchorColumn);
+			case "MUL" -> new MulFunction(template, _anchorRow, _anchorColumn);
+			case "DIV" -> new DivFunction(template, _anchorRow, _anchorColumn);
 			default -> throw new InvalidFunctionException(functionName);
 		};
 	}
@@ -2,22 +2,22 @@ package xxl.core;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The {@code Position} class represents a two-dimensional position or coordinate
  * consisting of a row and a column, that belongs to the {@link Cell}.
+ * Positions are immutable. Internally, coordinates travel as primitives or packed into a single
+ * {@code long} (see {@link #pack(int, int)}), so that hot paths don't allocate positions at all.
  * 
  * @Serial 202310112120L
  */
 public class Position implements Comparable<Position>, Serializable {
 	
 	/** The row coordinate. */
-	private int _row;
+	private final int _row;
 
 	/** The column coordinate. */
-	private int _column;
+	private final int _column;
 
 	/** The serial version UID for ensuring version compatibility during serialization. */
 	@Serial
@@ -29,11 +29,63 @@ public class Position implements Comparable<Position>, Serializable {
 	 * @param row    The row value for the position.
 	 * @param column The column value for the position.
 	 */
-	Position(int row, int column) {
+	public Position(int row, int column) {
 		_row = row;
 		_column = column;
 	}
 
+	/**
+	 * Retrieves the position with the specified packed coordinates.
+	 *
+	 * @param packed The coordinates, packed by {@link #pack(int, int)}.
+	 * @return The position with the given coordinates.
+	 */
+	public static Position of(long packed) {
+		return new Position(rowOf(packed), columnOf(packed));
+	}
+
+	/**
+	 * Packs some coordinates into a single {@code long}, the row in the upper half and the column in
+	 * the lower one. Packed coordinates of valid positions sort exactly like the positions themselves.
+	 *
+	 * @param row    The row to pack.
+	 * @param column The column to pack.
+	 * @return The packed coordinates.
+	 */
+	public static long pack(int row, int column) {
+		return ((long) row << 32) | (column & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Extracts the row of some packed coordinates.
+	 *
+	 * @param packed The packed coordinates.
+	 * @return The row.
+	 */
+	public static int rowOf(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	/**
+	 * Extracts the column of some packed coordinates.
+	 *
+	 * @param packed The packed coordinates.
+	 * @return The column.
+	 */
+	public static int columnOf(long packed) {
+		return (int) packed;
+	}
+
+	/**
+	 * Packs the coordinates of this {@link Position} into a single {@code long}.
+	 *
+	 * @return The packed coordinates.
+	 * @see #pack(int, int)
+	 */
+	public long pack() {
+		return pack(_row, _column);
+	}
+
 	/**
 	 * Checks if two positions are compatible for defining an interval.
 	 * Two positions are considered compatible if they meet one of the following conditions:
@@ -63,20 +115,21 @@ public class Position implements Comparable<Position>, Serializable {
 	}
 
 	/**
-	 * Indicates whether some other object is "equal to" this one. This method compares the hash code
-	 * of the current Position object with the hash code of the given object.
+	 * Indicates whether some other object is "equal to" this one. Two positions are equal when
+	 * both their rows and their columns are the same.
 	 *
 	 * @param obj The object to compare to this Position.
-	 * @return {@code true} if the hash codes are equal, indicating potential equality; {@code false} otherwise.
+	 * @return {@code true} if the object is a Position with the same coordinates; {@code false} otherwise.
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		return hashCode() == obj.hashCode();
+		return obj instanceof Position other && _row == other._row && _column == other._column;
 	}
 
 	/**
 	 * Returns a hash code value for the Position. The hash code is computed based on the row and
-	 * column coordinates, which are used to uniquely represent this Position object.
+	 * column coordinates. Different positions may share a hash code, so {@link #equals(Object)}
+	 * compares the coordinates themselves.
 	 *
 	 * @return A hash code value for this Position.
 	 */
@@ -88,23 +141,6 @@ public class Position implements Comparable<Position>, Serializable {
 		return hash;
 	}
 
-	/**
-	 * Generates and returns a list of Position objects representing all positions within the
-	 * rectangular region up to and including the current Position.
-	 *
-	 * @return A list of Position objects, where each Position represents a unique coordinate within
-	 *         the region from (1,1) to the current Position.
-	 */
-	public List<Position> getAllPositionsUpTo() {
-		List<Position> positions = new ArrayList<Position>();
-		for (int row = 1; row <= getRow(); row++) {
-			for (int col = 1; col <= getColumn(); col++) {
-				positions.add(new Position(row, col));
-			}
-		}
-		return positions;
-	}
-
 	/**
 	 * Checks if the current Position is located inside the specified spreadsheet.
 	 *
@@ -150,7 +186,7 @@ public class Position implements Comparable<Position>, Serializable {
 	 *
 	 * @return The row value.
 	 */
-	int getRow() {
+	public int getRow() {
 		return _row;
 	}
 
@@ -159,7 +195,7 @@ public class Position implements Comparable<Position>, Serializable {
 	 *
 	 * @return The column value.
 	 */
-	int getColumn() {
+	public int getColumn() {
 		return _column;
 	}
 
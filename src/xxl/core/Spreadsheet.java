@@ -1,25 +1,52 @@
 package xxl.core;
 
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
 
 import xxl.core.content.Content;
+import xxl.core.content.Reference;
+import xxl.core.content.literal.Literal;
+import xxl.core.content.literal.LiteralInteger;
 import xxl.core.content.literal.LiteralNullValue;
+import xxl.core.content.literal.LiteralString;
 import xxl.core.exception.InvalidCellIntervalException;
 import xxl.core.exception.InvalidFunctionException;
 import xxl.core.exception.UnrecognizedEntryException;
 import xxl.core.search.SearchStrategy;
-import xxl.core.storage.TreeMapStorage;
+import xxl.core.storage.AdaptiveStorage;
+import xxl.core.storage.ColumnarLiteralStorage;
+import xxl.core.storage.DenseGridStorage;
+import xxl.core.storage.LiteralStorage;
+import xxl.core.storage.OccupancyIndex;
+import xxl.core.storage.OffHeapLiteralStorage;
+import xxl.core.storage.PackedHashStorage;
+import xxl.core.storage.RangeAction;
 import xxl.core.storage.Storage;
 
 /**
  * The {@code Spreadsheet} class represents a grid-based spreadsheet with cells.
  * It allows users to insert content into specific cells and maintains a collection
  * of users associated with the spreadsheet.
+ * <p>
+ * Formulas may be recalculated in the background, on a worker thread of the spreadsheet, so edits return
+ * as soon as they are written. The worker only holds on to the spreadsheet while it settles a level of
+ * formulas, so edits and reads made meanwhile wait for that level at most. An edit made while the worker
+ * is under way cuts its recalculation short, and whatever it didn't settle yet is recalculated along with
+ * the edit. {@link #visualize(String)} doesn't even wait for the level: it shows the values settled last
+ * instead, and tells so. The spreadsheet is meant to be used from a single thread besides its worker.
  * 
  * @Serial 202308312359L
  */
@@ -31,6 +58,15 @@ public class Spreadsheet implements Serializable {
 	/** Stores the cells and positions of the spreadsheet. */
 	private Storage<Cell> _storage;
 
+	/** Stores the plain integers and strings of the positions that have no cell. */
+	private LiteralStorage _literals;
+
+	/** Indexes the positions whose content is not empty, so sheet-wide scans can skip the rest. */
+	private OccupancyIndex _occupied;
+
+	/** Tracks what each formula reads and recalculates the formulas affected by every change. */
+	private DependencyGraph _dependencies;
+
 	/** The range of the Spreadsheet, represented as interval. */
 	private Interval _spreadsheetRange;
 
@@ -39,24 +75,128 @@ public class Spreadsheet implements Serializable {
 
 	/** A cutbuffer atribute that holds the current clipboard of cells. */
 	private CutBuffer _cutBuffer;
+
+	/** How many batches are open. Formulas are only recalculated once the outermost one is committed. */
+	private transient int _batchDepth;
+
+	/**
+	 * The change gathered by the open batches, or by the edits not yet recalculated in the background,
+	 * or null if nothing was written in them yet.
+	 */
+	private transient DependencyGraph.Change _batchChange;
+
+	/**
+	 * Guards the contents and formulas against the worker recalculating them. Fair, so the worker letting go of
+	 * it between levels lets the edits waiting for it in. Made again after loading.
+	 */
+	private transient ReentrantLock _lock = new ReentrantLock(true);
+
+	/** Signalled by the worker every time it is done recalculating. Made again after loading. */
+	private transient Condition _quiescent = _lock.newCondition();
+
+	/** The worker recalculating formulas in the background, or null while the recalculation runs in place. */
+	private transient ExecutorService _worker;
+
+	/** Whether a recalculation was handed to the worker and is not done yet. */
+	private transient volatile boolean _recalculating;
+
+	/** What went wrong in the last background recalculation that failed, or null if none did since it was reported. */
+	private transient RuntimeException _recalculationFailure;
+
+	/** The number of edits made, so the worker can tell if any was made while it let go of the lock. */
+	private transient int _editCount;
+
+	/**
+	 * Guards the layout of the storages and the contents of the cells against {@link #visualize(String)}
+	 * reading them while another thread holds the lock. Whoever holds the lock takes it for writing around
+	 * each change to them, such as a cell materialized while the worker settles a level.
+	 */
+	private transient ReentrantReadWriteLock _layoutLock = new ReentrantReadWriteLock();
 	
 	/** The serial version UID for ensuring version compatibility during serialization. */
 	@Serial
 	private static final long serialVersionUID = 202308312359L;
+
+	/**
+	 * The largest area (rows times columns) for which the cells are kept in a {@link DenseGridStorage}.
+	 * The grid is allocated up front, so this keeps it to a few hundred kilobytes of references and leaves
+	 * bigger sheets to a storage that only grows with the cells actually written.
+	 */
+	private static final long DENSE_STORAGE_LIMIT = 1L << 16;
+
+	/**
+	 * The largest area (rows times columns) for which the cells are kept in an {@link AdaptiveStorage}.
+	 * Its directory has a slot for each of its regions, which on a sheet this big could take more room
+	 * than the cells it holds.
+	 */
+	private static final long ADAPTIVE_STORAGE_LIMIT = 1L << 34;
+
+	/** The smallest area (rows times columns) for which the literals are kept off the heap. */
+	private static final long OFF_HEAP_LITERAL_LIMIT = 1L << 24;
+
+	/** The content seen in every position that has not been written to yet. It is shared and never changes. */
+	private static final Content EMPTY_CONTENT = LiteralNullValue.getInstance();
+
+	/**
+	 * The contents of a range, as shown by {@link Spreadsheet#visualize(String)}, and whether their values
+	 * may not account for the last edits yet.
+	 */
+	public static class Visualization {
+
+		/** The string representation of the contents of the range. */
+		private final String _cells;
+
+		/** Whether the values shown may not account for the last edits yet. */
+		private final boolean _outdated;
+
+		/**
+		 * Initializes a new visualization with the given contents.
+		 *
+		 * @param cells    The string representation of the contents of the range.
+		 * @param outdated Whether the values shown may not account for the last edits yet.
+		 */
+		private Visualization(String cells, boolean outdated) {
+			_cells = cells;
+			_outdated = outdated;
+		}
+
+		/**
+		 * Gets the string representation of the contents of the range.
+		 *
+		 * @return The contents of the range.
+		 */
+		public String getCells() {
+			return _cells;
+		}
+
+		/**
+		 * Checks if the values shown may not account for the last edits yet, as the worker was still
+		 * recalculating them.
+		 *
+		 * @return {@code true} if the values may be outdated, {@code false} otherwise.
+		 */
+		public boolean isOutdated() {
+			return _outdated;
+		}
+
+	}
 	
 	/**
 	 * Constructs a new {@link Spreadsheet} with the specified number of rows and columns.
+	 * No {@link Cell} is created here: cells are only materialized when a formula is written to them
+	 * or when they are observed. Plain literals are kept in a {@link LiteralStorage} instead.
 	 *
 	 * @param rows    The number of rows in the spreadsheet.
 	 * @param columns The number of columns in the spreadsheet.
 	 */
 	Spreadsheet(int rows, int columns) {
 		_users = new ArrayList<User>();
-		_storage = new TreeMapStorage<Cell>();
+		_storage = createStorage(rows, columns);
+		_literals = createLiteralStorage(rows, columns);
+		_occupied = new OccupancyIndex(rows);
+		_dependencies = new DependencyGraph(this);
 		_spreadsheetRange = new Interval(new Position(rows, columns), this);
 		_cutBuffer = new CutBuffer();
-
-		populateSpreadsheet();
 	}
 
 	/**
@@ -66,7 +206,59 @@ public class Spreadsheet implements Serializable {
 	 * @param column the column of the cell to change
 	 */
 	public void insertContent(Position position, Content contentSpecification) {
-		getCell(position).setContent(contentSpecification);
+		insertContent(position.getRow(), position.getColumn(), contentSpecification);
+	}
+
+	/**
+	 * Insert specified content at the specified coordinates.
+	 * Works like {@link #insertContent(Position, Content)}, but spares bulk loops from allocating positions.
+	 *
+	 * @param row                  The row where to insert the content.
+	 * @param column               The column where to insert the content.
+	 * @param contentSpecification The content to insert.
+	 * @throws IndexOutOfBoundsException if the coordinates are outside of the spreadsheet, in which case nothing
+	 *                                   is changed.
+	 */
+	void insertContent(int row, int column, Content contentSpecification) {
+		// Checked first, as the dependency graph and the pending change must not hear of a position that isn't there
+		if (!isInside(row, column)) {
+			throw new IndexOutOfBoundsException(row + ";" + column);
+		}
+		_lock.lock();
+		try {
+			_editCount++;
+			// The formulas depending on the position take down their values before they go stale
+			DependencyGraph.Change change;
+			if (_batchDepth > 0 || _worker != null) {
+				_batchChange = _dependencies.prepareChange(_batchChange, row, column, contentSpecification);
+				change = null;
+			}
+			else {
+				change = _dependencies.prepareChange(row, column);
+			}
+			// Plain literals of positions without a cell don't need one
+			if (_storage.get(row, column) != null || !storeLiteral(row, column, contentSpecification)) {
+				_layoutLock.writeLock().lock();
+				try {
+					getCell(row, column).setContent(contentSpecification);
+				}
+				finally {
+					_layoutLock.writeLock().unlock();
+				}
+			}
+			_occupied.set(row, column, !(contentSpecification instanceof LiteralNullValue));
+			_dependencies.setContent(row, column, contentSpecification);
+			_dependencies.recalculate(change);
+			if (contentSpecification instanceof LiteralNullValue) {
+				releaseCell(row, column);
+			}
+			if (_batchDepth == 0) {
+				scheduleRecalculation();
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
 	}
 
 	/**
@@ -90,7 +282,13 @@ public class Spreadsheet implements Serializable {
 	 */
 	public void copyGamma(String gamma) throws InvalidCellIntervalException {
 		Interval intervalToCopy = new Interval(gamma, this);
-		_cutBuffer.setCutBuffer(new Interval(intervalToCopy).getCells());
+		_lock.lock();
+		try {
+			_cutBuffer.setCutBuffer(new Interval(intervalToCopy).getCells());
+		}
+		finally {
+			_lock.unlock();
+		}
 	}
 
 	/**
@@ -104,13 +302,20 @@ public class Spreadsheet implements Serializable {
 	 */
 	public void pasteGamma(String gamma) throws InvalidCellIntervalException {
 		Interval intervalToPaste = new Interval(gamma, this);
-		// When the gamma where to paste has only a single Cell
-		if (_cutBuffer.getCells().size() > 1 && intervalToPaste.isSingle()) {
-			pasteContentInPosition(intervalToPaste.getFirstPosition(), _cutBuffer.getCells());
+		List<Cell> cells = _cutBuffer.getCells();
+		beginBatch();
+		try {
+			// When the gamma where to paste has only a single Cell
+			if (cells.size() > 1 && intervalToPaste.isSingle()) {
+				pasteContentInPosition(intervalToPaste.getFirstPosition(), cells);
+			}
+			// Pastes it. Only if the interval is the same size of the cutBuffer
+			else if (intervalToPaste.size() == cells.size()) {
+				intervalToPaste.pasteContent(cells);
+			}
 		}
-		// Pastes it. Only if the interval is the same size of the cutBuffer
-		else if (intervalToPaste.getPositions().size() == getCutBuffer().size()) {
-			intervalToPaste.pasteContent(_cutBuffer.getCells());
+		finally {
+			commitBatch();
 		}
 	}
 
@@ -124,8 +329,12 @@ public class Spreadsheet implements Serializable {
 	 */
 	public void deleteGamma(String gamma) throws InvalidCellIntervalException {
 		Interval intervalToDelete = new Interval(gamma, this);
-		for (Position position: intervalToDelete.getPositions()) {
-			getCell(position).setContent(new LiteralNullValue());
+		beginBatch();
+		try {
+			intervalToDelete.pasteContent(EMPTY_CONTENT);
+		}
+		finally {
+			commitBatch();
 		}
 	}
 
@@ -141,13 +350,203 @@ public class Spreadsheet implements Serializable {
 	 * @throws UnrecognizedEntryException  if the `contentSpecification` contains unrecognized input.
 	 */
 	public void insertGamma(String gamma, String contentSpecification) throws InvalidCellIntervalException, InvalidFunctionException, UnrecognizedEntryException {
-		// convert contentSpecification to a Content instance
-		Parser lineParser = new Parser(this);
-		Content contentToInsert = lineParser.parseContentInput(contentSpecification);
+		// Parsed under the lock, as an interval function computes its value when it is made, reading cells the
+		// worker may be settling
+		_lock.lock();
+		try {
+			// convert contentSpecification to a Content instance
+			Parser lineParser = new Parser(this);
+			Content contentToInsert = lineParser.parseContentInput(contentSpecification);
+
+			// get Interval where to insert and do it
+			Interval intervalToInsert = new Interval(gamma, this);
+			beginBatch();
+			try {
+				intervalToInsert.pasteContent(contentToInsert);
+			}
+			finally {
+				commitBatch();
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
 
-		// get Interval where to insert and do it
-		Interval intervalToInsert = new Interval(gamma, this);
-		intervalToInsert.pasteContent(contentToInsert);
+	/**
+	 * Opens a batch of edits. Until the batch is committed, contents are written right away but formulas
+	 * are not recalculated; committing recalculates every formula affected by the batch once, whatever
+	 * the number of edits that reached it. Batches may be nested, and only the outermost commit recalculates.
+	 */
+	public void beginBatch() {
+		_lock.lock();
+		try {
+			_batchDepth++;
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Commits the innermost open batch of edits, recalculating the formulas affected by the edits of every
+	 * batch if it was the outermost one.
+	 *
+	 * @throws IllegalStateException if no batch is open.
+	 */
+	public void commitBatch() {
+		_lock.lock();
+		try {
+			if (_batchDepth == 0) {
+				throw new IllegalStateException("No batch to commit");
+			}
+			if (--_batchDepth > 0 || _batchChange == null) {
+				return;
+			}
+			if (_worker != null) {
+				scheduleRecalculation();
+				return;
+			}
+			DependencyGraph.Change change = _batchChange;
+			_batchChange = null;
+			_dependencies.recalculate(change);
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Turns the background recalculation on or off. While it is on, edits return as soon as they are written,
+	 * and the formulas they affect are recalculated by a worker thread of the spreadsheet. Turning it off
+	 * waits for the worker to finish what it is doing, recalculates whatever it didn't get to yet in place,
+	 * and lets the worker go. The application turns it on when asked to, see {@link Calculator}.
+	 *
+	 * @param enabled Whether formulas are recalculated in the background.
+	 */
+	public void setBackgroundRecalculation(boolean enabled) {
+		_lock.lock();
+		try {
+			if (enabled == (_worker != null)) {
+				return;
+			}
+			if (enabled) {
+				_worker = Executors.newSingleThreadExecutor(task -> {
+					Thread thread = new Thread(task, "xxl-recalculation");
+					// Never keeps the application running on its own
+					thread.setDaemon(true);
+					return thread;
+				});
+				return;
+			}
+			while (_recalculating) {
+				_quiescent.awaitUninterruptibly();
+			}
+			_worker.shutdown();
+			_worker = null;
+			if (_batchDepth == 0 && _batchChange != null) {
+				DependencyGraph.Change change = _batchChange;
+				_batchChange = null;
+				_dependencies.recalculate(change);
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if the background recalculation is on.
+	 *
+	 * @return {@code true} if formulas are recalculated in the background, {@code false} otherwise.
+	 */
+	public boolean isBackgroundRecalculation() {
+		return _worker != null;
+	}
+
+	/**
+	 * Checks if a recalculation is under way in the background, in which case the values shown may not
+	 * account for the last edits yet.
+	 *
+	 * @return {@code true} if the worker has a recalculation to finish, {@code false} otherwise.
+	 */
+	public boolean isRecalculating() {
+		return _recalculating;
+	}
+
+	/**
+	 * Waits until the worker is done with every recalculation handed to it, so every formula accounts for
+	 * every edit made so far. Returns right away if the recalculation runs in place.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 * @throws IllegalStateException if a background recalculation failed since the last time one was reported.
+	 */
+	public void awaitQuiescence() throws InterruptedException {
+		_lock.lock();
+		try {
+			while (_recalculating) {
+				_quiescent.await();
+			}
+			if (_recalculationFailure != null) {
+				RuntimeException failure = _recalculationFailure;
+				_recalculationFailure = null;
+				throw new IllegalStateException("Background recalculation failed", failure);
+			}
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Hands the edits gathered outside any batch to the worker, unless it already has them or the
+	 * recalculation runs in place. Must be called with the lock held.
+	 */
+	private void scheduleRecalculation() {
+		if (_worker == null || _batchChange == null || _recalculating) {
+			return;
+		}
+		_recalculating = true;
+		_worker.execute(this::recalculateInBackground);
+	}
+
+	/**
+	 * Recalculates the edits gathered so far, on the worker, a level at a time. The lock is let go between levels;
+	 * if an edit was made meanwhile, the recalculation is cut short and what it left is recalculated along with
+	 * the edits gathered since. Edits made while a batch is open are left to the commit of the batch, which hands
+	 * them over again.
+	 */
+	private void recalculateInBackground() {
+		_lock.lock();
+		try {
+			DependencyGraph.Recalculation recalculation = null;
+			while (true) {
+				if (recalculation == null || recalculation.isDone()) {
+					if (_batchDepth > 0 || _batchChange == null) {
+						return;
+					}
+					recalculation = _dependencies.startRecalculation(_batchChange);
+					_batchChange = null;
+					continue;
+				}
+				int editCount = _editCount;
+				recalculation.step();
+				_lock.unlock();
+				_lock.lock();
+				if (_editCount != editCount) {
+					_batchChange = recalculation.cutShort(_batchChange);
+					recalculation = null;
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			_recalculationFailure = e;
+		}
+		finally {
+			_recalculating = false;
+			_quiescent.signalAll();
+			_lock.unlock();
+		}
 	}
 
 	/**
@@ -156,10 +555,39 @@ public class Spreadsheet implements Serializable {
 	 * @param gamma The gamma string representing the spreadsheet range to visualize.
 	 * @return A string representation of the contents within the specified spreadsheet range.
 	 * @throws InvalidCellIntervalException if the gamma string format is invalid.
+	 * @see #visualize(String)
 	 */
 	public String visualizeGamma(String gamma) throws InvalidCellIntervalException {
+		return visualize(gamma).getCells();
+	}
+
+	/**
+	 * Visualizes the content of a spreadsheet range specified by a given gamma string, telling whether the values
+	 * shown may not account for the last edits yet. While the worker is settling a level, the values settled
+	 * last are shown instead of waiting for it; the cells are then read under the layout lock, so they are
+	 * never read halfway through being stored. Values are immutable literals, so each one read is whole.
+	 *
+	 * @param gamma The gamma string representing the spreadsheet range to visualize.
+	 * @return The contents within the specified spreadsheet range, and whether they may be outdated.
+	 * @throws InvalidCellIntervalException if the gamma string format is invalid.
+	 */
+	public Visualization visualize(String gamma) throws InvalidCellIntervalException {
 		Interval intervalToVisualize = new Interval(gamma, this);
-		return intervalToVisualize.readInterval();
+		if (!_lock.tryLock()) {
+			_layoutLock.readLock().lock();
+			try {
+				return new Visualization(intervalToVisualize.readInterval(true), true);
+			}
+			finally {
+				_layoutLock.readLock().unlock();
+			}
+		}
+		try {
+			return new Visualization(intervalToVisualize.readInterval(), _recalculating);
+		}
+		finally {
+			_lock.unlock();
+		}
 	}
 
 	/**
@@ -170,8 +598,14 @@ public class Spreadsheet implements Serializable {
 	 * @return A list of cells that match the search criteria.
 	 */
 	public String search(SearchStrategy searchType, String toSearch) {
-		List<Cell> foundCells = searchType.search(this, toSearch);
-		return displayCells(foundCells);
+		_lock.lock();
+		try {
+			List<Cell> foundCells = searchType.search(this, toSearch);
+			return displayCells(foundCells);
+		}
+		finally {
+			_lock.unlock();
+		}
 	}
 
 	/**
@@ -181,6 +615,7 @@ public class Spreadsheet implements Serializable {
 	 * @return A string representing the content of the cut buffer or an empty string if the cut buffer does not exist.
 	 */
 	public String visualizeCutBuffer() {
+		_lock.lock();
 		try {
 			return displayCells(_cutBuffer.getCells());
 		}
@@ -188,25 +623,280 @@ public class Spreadsheet implements Serializable {
 			// If there are no cells inside the cutBuffer, there is no cutBuffer to show
 			return "";
 		}
+		finally {
+			_lock.unlock();
+		}
 	}
 
 	/**
-	 * Retrieves the cell at the specified position.
+	 * Retrieves the cell at the specified position, creating it if it was never written to.
+	 * Use {@link #getContent(Position)} when the cell is only going to be read.
 	 *
 	 * @param position The position of the cell to retrieve.
-	 * @return The cell at the given position.
+	 * @return The cell at the given position, or null if the position is outside the spreadsheet.
 	 */
 	public Cell getCell(Position position) {
-		return _storage.get(position);
+		return getCell(position.getRow(), position.getColumn());
+	}
+
+	/**
+	 * Retrieves the cell at the specified coordinates, creating it if it was never written to.
+	 * Works like {@link #getCell(Position)}, but spares bulk loops from allocating positions.
+	 *
+	 * @param row    The row of the cell to retrieve.
+	 * @param column The column of the cell to retrieve.
+	 * @return The cell at the given coordinates, or null if they are outside the spreadsheet.
+	 */
+	Cell getCell(int row, int column) {
+		Cell cell = _storage.get(row, column);
+		if (cell == null && isInside(row, column)) {
+			cell = new Cell(row, column);
+			// A literal already written to the position moves into the new cell
+			cell.setContent(getLiteral(row, column));
+			_layoutLock.writeLock().lock();
+			try {
+				_literals.clear(row, column);
+				_storage.set(cell.getPosition(), cell);
+			}
+			finally {
+				_layoutLock.writeLock().unlock();
+			}
+		}
+		return cell;
+	}
+
+	/**
+	 * Drops the cell at the specified coordinates from the storage once it was emptied, so the storage
+	 * can shrink back. A cell still flagged as cyclic is kept, so the flag is not lost.
+	 *
+	 * @param row    The row of the emptied cell.
+	 * @param column The column of the emptied cell.
+	 */
+	private void releaseCell(int row, int column) {
+		Cell cell = _storage.get(row, column);
+		if (cell != null && !cell.isCyclic()) {
+			_layoutLock.writeLock().lock();
+			try {
+				_storage.set(cell.getPosition(), null);
+			}
+			finally {
+				_layoutLock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Takes a snapshot of how the cells of a large spreadsheet are laid out in memory.
+	 *
+	 * @return The statistics of the cell storage, or null if the spreadsheet is small enough to keep
+	 *         its cells in a plain grid.
+	 */
+	public AdaptiveStorage.Stats getStorageStats() {
+		_lock.lock();
+		try {
+			return _storage instanceof AdaptiveStorage<Cell> adaptive ? adaptive.stats() : null;
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Retrieves the content at the specified position without creating a cell for it.
+	 * Positions that were never written to share the same empty content.
+	 *
+	 * @param position The position of the content to retrieve.
+	 * @return The content at the given position.
+	 */
+	public Content getContent(Position position) {
+		return getContent(position.getRow(), position.getColumn());
+	}
+	
+	/**
+	 * Retrieves the content at the specified coordinates without creating a cell for it.
+	 * Works like {@link #getContent(Position)}, but spares hot loops from allocating positions.
+	 *
+	 * @param row    The row of the content to retrieve.
+	 * @param column The column of the content to retrieve.
+	 * @return The content at the given coordinates.
+	 */
+	Content getContent(int row, int column) {
+		Cell cell = _storage.get(row, column);
+		if (cell == null) {
+			return getLiteral(row, column);
+		}
+		return cell.getContent();
+	}
+
+	/**
+	 * Retrieves the value at the specified coordinates, as the formulas reading it see it.
+	 * Positions caught in a cycle hold an error.
+	 *
+	 * @param row    The row of the value to retrieve.
+	 * @param column The column of the value to retrieve.
+	 * @return The value at the given coordinates.
+	 */
+	Literal getValue(int row, int column) {
+		Cell cell = _storage.get(row, column);
+		return cell == null ? getLiteral(row, column).getValue() : cell.getValue();
+	}
+
+	/**
+	 * Retrieves the value a reference to the specified position reads. References found along the way
+	 * are followed here, one link at a time, instead of each reference asking the next one, so chains of
+	 * any length are resolved without growing the call stack; a chain can't loop, as the cycles are
+	 * flagged when they are closed. The chain ends early at the first reference already holding its value.
+	 *
+	 * @param position The position the reference points to.
+	 * @return The value at the end of the chain of references.
+	 */
+	public Literal resolveReference(Position position) {
+		return resolveReference(position.getRow(), position.getColumn());
+	}
+
+	/**
+	 * Retrieves the value a reference to the specified coordinates reads.
+	 * Works like {@link #resolveReference(Position)}, but spares compiled formulas from allocating positions.
+	 *
+	 * @param row    The row the reference points to.
+	 * @param column The column the reference points to.
+	 * @return The value at the end of the chain of references.
+	 */
+	public Literal resolveReference(int row, int column) {
+		Cell cell = _storage.get(row, column);
+		while (cell != null && !cell.isCyclic() && cell.getContent() instanceof Reference reference
+				&& !reference.hasValue()) {
+			row = reference.getPosition().getRow();
+			column = reference.getPosition().getColumn();
+			cell = _storage.get(row, column);
+		}
+		return cell == null ? getLiteral(row, column).getValue() : cell.getValue();
+	}
+
+	/**
+	 * Visits every position of a range that spans a single row or a single column, in order, handing
+	 * the action the cell of each position, or null if it has none. The cells are read straight from
+	 * the storage, so no position nor list is created along the way.
+	 *
+	 * @param fromRow    The row of the first position of the range.
+	 * @param fromColumn The column of the first position of the range.
+	 * @param toRow      The row of the last position of the range.
+	 * @param toColumn   The column of the last position of the range.
+	 * @param action     The action to perform over each position.
+	 * @return {@code true} if the whole range was visited, {@code false} if the action stopped it.
+	 */
+	boolean forEachCell(int fromRow, int fromColumn, int toRow, int toColumn, RangeAction<Cell> action) {
+		if (fromRow == toRow) {
+			return _storage.forEachInRow(fromRow, fromColumn, toColumn, action);
+		}
+		return _storage.forEachInColumn(fromColumn, fromRow, toRow, action);
+	}
+
+	/**
+	 * Hands the value of every position of a range that spans a single row or a single column, in order,
+	 * to a {@link ValueScanner}. The scan stops as soon as the scanner asks for it.
+	 *
+	 * @param fromRow    The row of the first position of the range.
+	 * @param fromColumn The column of the first position of the range.
+	 * @param toRow      The row of the last position of the range.
+	 * @param toColumn   The column of the last position of the range.
+	 * @param scanner    The scanner receiving the values.
+	 */
+	void scanValues(int fromRow, int fromColumn, int toRow, int toColumn, ValueScanner scanner) {
+		forEachCell(fromRow, fromColumn, toRow, toColumn, (row, column, cell) -> scanValue(row, column, cell, scanner));
+	}
+
+	/**
+	 * Retrieves the content of a position visited by {@link #forEachCell}, without creating a cell for it.
+	 *
+	 * @param row    The row of the position.
+	 * @param column The column of the position.
+	 * @param cell   The cell at the position, or null if it has none.
+	 * @return The content at the given position.
+	 */
+	Content getContent(int row, int column, Cell cell) {
+		return cell == null ? getLiteral(row, column) : cell.getContent();
+	}
+
+	/**
+	 * Hands the value of a position to a {@link ValueScanner}.
+	 * Integers and strings kept in the literal storage are read straight from it.
+	 *
+	 * @param row     The row of the value to scan.
+	 * @param column  The column of the value to scan.
+	 * @param cell    The cell at the position, or null if it has none.
+	 * @param scanner The scanner receiving the value.
+	 * @return {@code true} if the scanner wants to keep scanning, {@code false} otherwise.
+	 */
+	private boolean scanValue(int row, int column, Cell cell, ValueScanner scanner) {
+		if (cell != null) {
+			return scanLiteral(cell.getValue(), scanner);
+		}
+		if (_literals.hasInt(row, column)) {
+			return scanner.scanInt(_literals.getInt(row, column));
+		}
+		String string = _literals.getString(row, column);
+		if (string != null) {
+			return scanner.scanString(string);
+		}
+		return scanner.scanOther(EMPTY_CONTENT.getValue());
+	}
+
+	/**
+	 * Hands a computed value to a {@link ValueScanner}, according to its type.
+	 *
+	 * @param value   The value to scan.
+	 * @param scanner The scanner receiving the value.
+	 * @return {@code true} if the scanner wants to keep scanning, {@code false} otherwise.
+	 */
+	private static boolean scanLiteral(Literal value, ValueScanner scanner) {
+		return switch (value.getKind()) {
+			case INTEGER -> scanner.scanInt(value.intValueOr(0));
+			case STRING -> scanner.scanString(value.stringValueOr(""));
+			default -> scanner.scanOther(value);
+		};
 	}
 	
 	/**
-	 * Retrieves an iterator for the cells stored in this data structure.
+	 * Retrieves an iterator for the non-empty cells of this spreadsheet, in row-major order.
+	 * The walk follows the occupancy index, so it costs time proportional to the number of non-empty
+	 * positions, not to the area of the sheet. Positions whose literal lives in the literal storage
+	 * are handed over as detached cells, which are not part of the spreadsheet.
 	 *
-	 * @return An iterator over the cells stored in this data structure.
+	 * @return An iterator over the non-empty cells of this spreadsheet.
 	 */
 	public Iterator<Cell> getCellIterator() {
-		return _storage.iterator();
+		PrimitiveIterator.OfLong positions = _occupied.iterator();
+		return new Iterator<Cell>() {
+
+			@Override
+			public boolean hasNext() {
+				return positions.hasNext();
+			}
+
+			@Override
+			public Cell next() {
+				long position = positions.nextLong();
+				int row = Position.rowOf(position);
+				int column = Position.columnOf(position);
+				Cell cell = _storage.get(row, column);
+				if (cell == null) {
+					cell = new Cell(row, column);
+					cell.setContent(getLiteral(row, column));
+				}
+				return cell;
+			}
+
+		};
+	}
+
+	/**
+	 * Retrieves the dependency graph of the spreadsheet, which also reports how much recalculation was done.
+	 *
+	 * @return The dependency graph of this spreadsheet.
+	 */
+	public DependencyGraph getDependencyGraph() {
+		return _dependencies;
 	}
 
 	/**
@@ -279,17 +969,123 @@ public class Spreadsheet implements Serializable {
 	 * @return A string representation of the content in the cell at the given {@link Position}.
 	 */
 	String visualizeCellInPosition(Position cellPosition) {
-		return getCell(cellPosition).toString();
+		return visualizeCell(cellPosition.getRow(), cellPosition.getColumn(), _storage.get(cellPosition), false);
+	}
+
+	/**
+	 * Visualizes a position visited by {@link #forEachCell}.
+	 *
+	 * @param row     The row of the position.
+	 * @param column  The column of the position.
+	 * @param cell    The cell at the position, or null if it has none.
+	 * @param settled Whether the value settled last is shown, without evaluating anything.
+	 * @return A string representation of the content at the given position.
+	 */
+	String visualizeCell(int row, int column, Cell cell, boolean settled) {
+		if (cell == null) {
+			return row + ";" + column + "|" + getLiteral(row, column);
+		}
+		return settled ? cell.toSettledString() : cell.toString();
+	}
+
+	/**
+	 * Chooses the {@link Storage} that best fits a spreadsheet of the given dimensions.
+	 * Sheets small enough to be fully allocated use a {@link DenseGridStorage}, with constant time
+	 * lookups. Bigger ones use an {@link AdaptiveStorage}, which lays out each region according to
+	 * how full it is, so both nearly empty and tightly packed parts stay cheap. Past that, a sheet can
+	 * only be sparse, and a {@link PackedHashStorage} costs nothing but the cells written.
+	 *
+	 * @param rows    The number of rows in the spreadsheet.
+	 * @param columns The number of columns in the spreadsheet.
+	 * @return The storage to be used by the spreadsheet.
+	 */
+	private static Storage<Cell> createStorage(int rows, int columns) {
+		long area = (long) rows * columns;
+		if (area <= DENSE_STORAGE_LIMIT) {
+			return new DenseGridStorage<Cell>(rows, columns);
+		}
+		if (area <= ADAPTIVE_STORAGE_LIMIT) {
+			return new AdaptiveStorage<Cell>(rows, columns);
+		}
+		return new PackedHashStorage<Cell>();
+	}
+
+	/**
+	 * Chooses the {@link LiteralStorage} that best fits a spreadsheet of the given dimensions.
+	 * Huge sheets keep their literals in an {@link OffHeapLiteralStorage}, out of reach of the garbage
+	 * collector. The others use a {@link ColumnarLiteralStorage}.
+	 *
+	 * @param rows    The number of rows in the spreadsheet.
+	 * @param columns The number of columns in the spreadsheet.
+	 * @return The literal storage to be used by the spreadsheet.
+	 */
+	private static LiteralStorage createLiteralStorage(int rows, int columns) {
+		if ((long) rows * columns >= OFF_HEAP_LITERAL_LIMIT) {
+			return new OffHeapLiteralStorage(rows, columns);
+		}
+		return new ColumnarLiteralStorage(rows, columns);
 	}
 
 	/**
-	 * Populates the {@code Spreadsheet} with cells based on the specified number of rows and columns.
-	 * Each cell is associated with a unique {@link Position}.
+	 * Keeps a plain literal in the literal storage, if the content is one.
+	 * Empty contents just clear whatever literal the position had.
+	 *
+	 * @param row     The row where to store the literal.
+	 * @param column  The column where to store the literal.
+	 * @param content The content to store.
+	 * @return {@code true} if the content was stored, {@code false} if it needs a cell.
 	 */
-	private void populateSpreadsheet() {
-		for (Position position: getLastPosition().getAllPositionsUpTo()) {
-			_storage.set(position, new Cell(position));
+	private boolean storeLiteral(int row, int column, Content content) {
+		if (!isInside(row, column) || !(content instanceof LiteralInteger || content instanceof LiteralString
+				|| content instanceof LiteralNullValue)) {
+			return false;
+		}
+		_layoutLock.writeLock().lock();
+		try {
+			if (content instanceof LiteralInteger integer) {
+				_literals.setInt(row, column, integer.getIntValue());
+			}
+			else if (content instanceof LiteralString string) {
+				_literals.setString(row, column, string.getStringValue());
+			}
+			else {
+				_literals.clear(row, column);
+			}
 		}
+		finally {
+			_layoutLock.writeLock().unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Retrieves the literal kept in the literal storage at the specified coordinates.
+	 *
+	 * @param row    The row of the literal.
+	 * @param column The column of the literal.
+	 * @return The literal at the given coordinates, or the shared empty content if there is none.
+	 */
+	private Content getLiteral(int row, int column) {
+		if (_literals.hasInt(row, column)) {
+			return LiteralInteger.valueOf(_literals.getInt(row, column));
+		}
+		String string = _literals.getString(row, column);
+		if (string != null) {
+			return new LiteralString(string);
+		}
+		return EMPTY_CONTENT;
+	}
+
+	/**
+	 * Checks if the given coordinates belong to this spreadsheet.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if the coordinates are inside the spreadsheet, {@code false} otherwise.
+	 */
+	private boolean isInside(int row, int column) {
+		Position last = getLastPosition();
+		return row >= 1 && column >= 1 && row <= last.getRow() && column <= last.getColumn();
 	}
 
 	/**
@@ -343,4 +1139,37 @@ public class Spreadsheet implements Serializable {
 		Interval toPaste = new Interval(initialPosition, finalPosition, this);
 		toPaste.pasteContent(cells);
 	}
+
+	/**
+	 * Serializes the spreadsheet while holding its lock, so the worker can't change formulas halfway through.
+	 * Recalculations still pending are not waited for; see {@link #awaitQuiescence()}.
+	 *
+	 * @param out The stream to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Serial
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		_lock.lock();
+		try {
+			out.defaultWriteObject();
+		}
+		finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Deserializes the spreadsheet, making its locks again. Loaded spreadsheets recalculate in place.
+	 *
+	 * @param in The stream to read from.
+	 * @throws IOException if an I/O error occurs.
+	 * @throws ClassNotFoundException if a serialized class can't be found.
+	 */
+	@Serial
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		_lock = new ReentrantLock(true);
+		_quiescent = _lock.newCondition();
+		_layoutLock = new ReentrantReadWriteLock();
+	}
 }
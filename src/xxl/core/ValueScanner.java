@@ -0,0 +1,36 @@
+package xxl.core;
+
+import xxl.core.content.literal.Literal;
+
+/**
+ * The {@code ValueScanner} interface receives the values of a range of positions, one at a time.
+ * Integers and strings are handed over as they are stored, so plain values can be scanned without
+ * creating a {@link Literal} for each of them.
+ */
+public interface ValueScanner {
+
+	/**
+	 * Receives an integer value.
+	 *
+	 * @param value The integer value.
+	 * @return {@code true} to keep scanning, {@code false} to stop.
+	 */
+	boolean scanInt(int value);
+
+	/**
+	 * Receives a string value.
+	 *
+	 * @param value The string value.
+	 * @return {@code true} to keep scanning, {@code false} to stop.
+	 */
+	boolean scanString(String value);
+
+	/**
+	 * Receives a value that is neither an integer nor a string, such as an empty position or an error.
+	 *
+	 * @param value The value.
+	 * @return {@code true} to keep scanning, {@code false} to stop.
+	 */
+	boolean scanOther(Literal value);
+
+}
@@ -3,7 +3,7 @@ package xxl.core.content;
 import java.io.Serial;
 import java.io.Serializable;
 
-import xxl.core.ReferenceUpdateVisitor;
+import xxl.core.DependencyVisitor;
 import xxl.core.content.literal.Literal;
 import xxl.core.search.SearchVisitor;
 
@@ -26,6 +26,18 @@ public abstract class Content implements Serializable {
 	 * @return A string representation of the content.
 	 */
 	abstract public String toString();
+
+	/**
+	 * Returns a string representation of the content, showing the given value in place of its own.
+	 * Used for contents whose own value can't be trusted, such as the ones caught in a cycle. Shows
+	 * the given value alone by default, as contents holding nothing else are their own value.
+	 *
+	 * @param value The value to show.
+	 * @return A string representation of the content.
+	 */
+	public String toString(Literal value) {
+		return value.toString();
+	}
 	
 	/**
 	 * Retrieves the value of the content, which is specific to the content type.
@@ -34,6 +46,27 @@ public abstract class Content implements Serializable {
 	 */
 	abstract public Literal getValue();
 
+	/**
+	 * Retrieves the value the content settled on last, without evaluating anything, so it can be read while
+	 * a recalculation is under way on another thread. Contents that evaluate something override it; the
+	 * others are settled as soon as they are made, so this is their value.
+	 *
+	 * @return The value settled last.
+	 */
+	public Literal getLastValue() {
+		return getValue();
+	}
+
+	/**
+	 * Checks if the content must evaluate something again before its value is read, as something it reads
+	 * changed since it was evaluated last. Contents holding nothing to evaluate never are.
+	 *
+	 * @return {@code true} if the content is stale, {@code false} otherwise.
+	 */
+	public boolean isStale() {
+		return false;
+	}
+
 	/**
      * Accepts a search visitor to visit and process this content.
      *
@@ -42,12 +75,28 @@ public abstract class Content implements Serializable {
 	abstract public void accept(SearchVisitor visitor);
 
 	/**
-     * Accepts a reference update visitor along with an observer to visit and update this content.
+     * Accepts a dependency visitor, which collects the positions this content reads.
      *
-     * @param visitor The reference update visitor to accept.
-     * @param observer The observer to be used for updates.
+     * @param visitor The dependency visitor to accept.
+     */
+	abstract public void accept(DependencyVisitor visitor);
+
+	/**
+     * Called when the content starts being kept up to date by the dependency graph of a spreadsheet,
+     * having been written to a position and read something there. Does nothing by default.
+     */
+	public void attach() {
+		// Most contents hold nothing the graph keeps up to date
+	}
+
+	/**
+     * Called when the content stops being kept up to date by the dependency graph of a spreadsheet,
+     * having been overwritten or deleted at every position it was written to. Contents holding state
+     * the graph kept up to date can no longer trust it from here on. Does nothing by default.
      */
-	abstract public void accept(ReferenceUpdateVisitor visitor, Observer observer);
+	public void detach() {
+		// Most contents hold nothing the graph keeps up to date
+	}
 
 }
 
@@ -1,5 +1,8 @@
 package xxl.core.content;
 
+import xxl.core.Position;
+import xxl.core.content.literal.Literal;
+
 /**
  * The Observer interface represents an object that can listen for and respond to update events.
  */
@@ -8,4 +11,26 @@ public interface Observer {
 	 * This method is called to notify the observer of an update event.
 	 */
 	public void update();
+
+	/**
+	 * This method is called to notify the observer that a single value it reads has changed.
+	 * Observers able to do so may account for the change without looking at anything else.
+	 *
+	 * @param position The position whose value changed.
+	 * @param oldValue The value at the position before the change.
+	 * @param newValue The value at the position after the change.
+	 * @return {@code true} if the observer is up to date with the change, {@code false} if it still needs a full {@link #update()}.
+	 */
+	public default boolean update(Position position, Literal oldValue, Literal newValue) {
+		return false;
+	}
+
+	/**
+	 * Checks if the state the observer keeps up to date incrementally matches a full recomputation.
+	 *
+	 * @return {@code true} if the state is consistent, {@code false} otherwise.
+	 */
+	public default boolean isConsistent() {
+		return true;
+	}
 }
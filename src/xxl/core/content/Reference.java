@@ -1,18 +1,24 @@
 package xxl.core.content;
 
 import xxl.core.Position;
-import xxl.core.ReferenceUpdateVisitor;
+import xxl.core.DependencyVisitor;
 import xxl.core.Spreadsheet;
 import xxl.core.content.literal.Literal;
-import xxl.core.exception.InvalidValueTypeException;
+import xxl.core.content.literal.LiteralNullFunction;
 import xxl.core.search.SearchVisitor;
 
 /**
  * The {@code Reference} class represents a reference to a cell in a spreadsheet.
  * It extends the {@link Content} class and provides a way to access the value of a referenced cell.
  * A reference is associated with a specific position in the spreadsheet.
+ * <p>
+ * A reference written to a cell is kept up to date by the dependency graph of its spreadsheet, so it
+ * holds the value of the referenced cell and only reads it again after being told it changed. Reading
+ * the last link of a long chain of references then costs the same as reading the first. A reference
+ * the graph doesn't keep up to date, such as an argument of a function, reads the referenced cell
+ * every time.
  */
-public class Reference extends Content {
+public class Reference extends Content implements Observer {
 
 	/** The position of the referenced cell. */
 	private Position _referencePosition;
@@ -20,6 +26,18 @@ public class Reference extends Content {
 	/** The spreadsheet to which the reference belongs. */
 	private Spreadsheet _spreadsheet;
 
+	/**
+	 * The value of the referenced cell read last, or null if it was never read. Only up to date while the
+	 * reference is attached and not dirty.
+	 */
+	private Literal _value;
+
+	/** Whether the referenced cell changed since its value was read last. */
+	private boolean _dirty = true;
+
+	/** Whether the reference is kept up to date by the dependency graph of its spreadsheet. */
+	private boolean _attached;
+
 	/**
 	 * Constructs a new {@code Reference} object with the specified position and associated spreadsheet.
 	 *
@@ -37,16 +55,25 @@ public class Reference extends Content {
 	 * @return The content of the referenced cell.
 	 */
 	public Content getContent() {
-		return _spreadsheet.getCell(_referencePosition).getContent();
+		return _spreadsheet.getContent(_referencePosition);
+	}
+
+	/**
+	 * Retrieves the position of the referenced cell.
+	 *
+	 * @return The position this reference points to.
+	 */
+	public Position getPosition() {
+		return _referencePosition;
 	}
 
 	/**
-	 * Adds an observer to the cell referenced by this object.
+	 * Retrieves the spreadsheet to which the reference belongs.
 	 *
-	 * @param observer The observer to be added to the referenced cell.
+	 * @return The spreadsheet of the referenced cell.
 	 */
-	public void addObserver(Observer observer) {
-		_spreadsheet.getCell(_referencePosition).addObserver(observer);
+	public Spreadsheet getSpreadsheet() {
+		return _spreadsheet;
 	}
 
 	/**
@@ -57,31 +84,126 @@ public class Reference extends Content {
 	 */
 	@Override
 	public String toString() {
-		String referenceValue;
-		try {
-			referenceValue = Integer.toString(getValue().getIntValue());
-		} 
-		catch (InvalidValueTypeException e) {
-			// If we can't get an int value, we try to get a string one
-			try {
-				referenceValue = "'" + getValue().getStringValue();
-			}
-			// If we still can't get a string value, the value is "#VALUE"
-			catch (InvalidValueTypeException ivte) {
-				referenceValue = "#VALUE";
-			}
-		}
+		return toString(getValue());
+	}
+
+	/**
+	 * Returns a string representation of the reference in the format "value=position", showing the given value.
+	 *
+	 * @param value The value to show.
+	 * @return A string in the format "value=position".
+	 */
+	@Override
+	public String toString(Literal value) {
+		String referenceValue = switch (value.getKind()) {
+			case INTEGER -> Integer.toString(value.intValueOr(0));
+			case STRING -> "'" + value.stringValueOr("");
+			// Neither an int nor a string value, so the value is "#VALUE"
+			default -> "#VALUE";
+		};
 		return referenceValue + "=" + _referencePosition.toString();
 	}
 
 	/**
 	 * Retrieves the value of the referenced cell from the associated spreadsheet.
+	 * Chains of references are resolved by the spreadsheet one link at a time, so their length is not
+	 * bounded by the depth of the call stack.
 	 *
 	 * @return The value of the referenced cell as a {@link Literal}.
 	 */
 	@Override
 	public Literal getValue() {
-		return _spreadsheet.getCell(_referencePosition).getValue();
+		if (!_attached) {
+			return _spreadsheet.resolveReference(_referencePosition);
+		}
+		if (_dirty) {
+			_dirty = false;
+			_value = _spreadsheet.resolveReference(_referencePosition);
+		}
+		return _value;
+	}
+
+	/**
+	 * Retrieves the value of the referenced cell read last, without following the reference, even if the
+	 * referenced cell changed since.
+	 *
+	 * @return The value read last, or a null value if the reference was never read.
+	 */
+	@Override
+	public Literal getLastValue() {
+		Literal value = _value;
+		return value != null ? value : LiteralNullFunction.getInstance();
+	}
+
+	/**
+	 * Checks if the reference holds the up to date value of the referenced cell, so reading it doesn't
+	 * need to follow the reference.
+	 *
+	 * @return {@code true} if the value is held, {@code false} otherwise.
+	 */
+	public boolean hasValue() {
+		return _attached && !_dirty;
+	}
+
+	/**
+	 * Checks if the reference must follow the referenced cell again before its value is read.
+	 *
+	 * @return {@code true} if the value is not held, {@code false} otherwise.
+	 */
+	@Override
+	public boolean isStale() {
+		return !hasValue();
+	}
+
+	/**
+	 * Called when the referenced cell changed. The value is only marked dirty, not read.
+	 */
+	@Override
+	public void update() {
+		_dirty = true;
+	}
+
+	/**
+	 * Called when the value of the referenced cell changed, which becomes the value of the reference.
+	 *
+	 * @param position The position whose value changed, which is the referenced one.
+	 * @param oldValue The value at the position before the change.
+	 * @param newValue The value at the position after the change.
+	 * @return {@code true}, as the reference is up to date with the change.
+	 */
+	@Override
+	public boolean update(Position position, Literal oldValue, Literal newValue) {
+		_value = newValue;
+		_dirty = false;
+		return true;
+	}
+
+	/**
+	 * Checks if the value held matches the referenced cell.
+	 *
+	 * @return {@code true} if the value is consistent, {@code false} otherwise.
+	 */
+	@Override
+	public boolean isConsistent() {
+		return !hasValue() || _value.hasSameValue(_spreadsheet.resolveReference(_referencePosition));
+	}
+
+	/**
+	 * Starts holding the value of the referenced cell, as the graph keeps the reference up to date from here on.
+	 */
+	@Override
+	public void attach() {
+		_attached = true;
+		_dirty = true;
+	}
+
+	/**
+	 * Stops holding the value of the referenced cell, as changes to it no longer reach the reference.
+	 * The value read last is kept, to be shown until the reference is read again.
+	 */
+	@Override
+	public void detach() {
+		_attached = false;
 	}
 
 	/**
@@ -95,14 +217,13 @@ public class Reference extends Content {
 	}
 
 	/**
-	 * Accepts a reference update visitor along with an observer to visit and update this object.
+	 * Accepts a dependency visitor, which collects the position this reference reads.
 	 *
-	 * @param visitor The reference update visitor to accept.
-	 * @param observer The observer to be used for updates.
+	 * @param visitor The dependency visitor to accept.
 	 */
 	@Override
-	public void accept(ReferenceUpdateVisitor visitor, Observer observer) {
-		visitor.visit(this, observer);
+	public void accept(DependencyVisitor visitor) {
+		visitor.visit(this);
 	}
 
 }
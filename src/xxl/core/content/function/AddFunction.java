@@ -1,10 +1,6 @@
 package xxl.core.content.function;
 
 import xxl.core.content.Content;
-import xxl.core.content.literal.Literal;
-import xxl.core.content.literal.LiteralInteger;
-import xxl.core.content.literal.LiteralNullFunction;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code AddFunction} class represents an addition operation in a spreadsheet.
@@ -23,20 +19,26 @@ public class AddFunction extends BinaryFunction {
 	}
 
 	/**
-	 * Computes the result of the addition operation and returns it as a {@link LiteralInteger}.
+	 * Constructs a new {@code AddFunction} from a template of its operands, anchored at the given position.
 	 *
-	 * @return The result of the addition operation as a {@link LiteralInteger}.
+	 * @param template     The operands of the addition, relative to the anchor.
+	 * @param anchorRow    The row the operands are relative to.
+	 * @param anchorColumn The column the operands are relative to.
+	 */
+	public AddFunction(FormulaTemplate template, int anchorRow, int anchorColumn) {
+		super(template, anchorRow, anchorColumn, "ADD");
+	}
+
+	/**
+	 * Performs the addition on two integer arguments.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return The sum of the arguments, wrapped around like {@code int} addition.
 	 */
 	@Override
-	protected Literal computeValue() {
-		Literal arg1 = super._contents[0].getValue();
-		Literal arg2 = super._contents[1].getValue();
-		try {
-			return new LiteralInteger(arg1.getIntValue() + arg2.getIntValue());
-		}
-		catch (InvalidValueTypeException e) {
-			return new LiteralNullFunction();
-		}
+	protected int apply(int first, int second) {
+		return first + second;
 	}
 	
 }
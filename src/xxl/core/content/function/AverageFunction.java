@@ -1,20 +1,32 @@
 package xxl.core.content.function;
 
-import java.util.List;
-
 import xxl.core.Interval;
-import xxl.core.content.Content;
+import xxl.core.Position;
+import xxl.core.ValueScanner;
 import xxl.core.content.literal.Literal;
 import xxl.core.content.literal.LiteralInteger;
 import xxl.core.content.literal.LiteralNullFunction;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code AverageFunction} class represents a function that calculates the average (mean) of integer values
  * within an interval. If the values cannot be converted to integers, it returns a null value.
+ * <p>
+ * The function keeps the running sum of the integer values of its interval, and how many values are and
+ * aren't integers, so a change to a single value is accounted for without scanning the interval again.
  */
 public class AverageFunction extends IntervalFunction {
 
+	// These are set by computeValue, which the superclass constructor may already call, so they have no initializers
+
+	/** The sum of the integer values of the interval. */
+	private int _sum;
+
+	/** The number of integer values of the interval. */
+	private int _count;
+
+	/** The number of values of the interval that are not integers. */
+	private int _invalidCount;
+
 	/**
      * Constructs an {@code AverageFunction} with the given interval argument.
      *
@@ -27,22 +39,114 @@ public class AverageFunction extends IntervalFunction {
 	/**
      * Computes the result of the AVERAGE function by calculating the average of integer values within the interval.
      * If any value cannot be converted to an integer, it returns a null value.
+     * The whole interval is scanned, so the running aggregates start over from it.
      *
      * @return A {@code LiteralInteger} containing the average of the integer values, or a {@code LiteralNullFunction} if an error occurs.
      */
 	@Override
 	protected Literal computeValue() {
-		List<Content> intervalContents = _interval.getContent();
-		try {
-			int sum = 0;
-			for (Content content: intervalContents) {
-				sum += content.getValue().getIntValue();
-			}
-			return new LiteralInteger(sum / intervalContents.size());
+		Sum sum = new Sum();
+		_interval.scanValues(sum);
+		_sum = sum._sum;
+		_count = sum._count;
+		_invalidCount = sum._invalidCount;
+		return average();
+	}
+
+	/**
+     * Accounts for a change to a single value of the interval, by taking the old value out of the running
+     * aggregates and putting the new one in.
+     *
+     * @param position The position whose value changed.
+     * @param oldValue The value at the position before the change.
+     * @param newValue The value at the position after the change.
+     * @return {@code true} if the function is up to date with the change, {@code false} if it is stale.
+     */
+	@Override
+	public boolean update(Position position, Literal oldValue, Literal newValue) {
+		if (isStale()) {
+			return false;
 		}
-		catch (InvalidValueTypeException ivte) {
-			return new LiteralNullFunction();
+		if (oldValue.isInt()) {
+			_sum -= oldValue.intValueOr(0);
+			_count--;
 		}
+		else {
+			_invalidCount--;
+		}
+		if (newValue.isInt()) {
+			_sum += newValue.intValueOr(0);
+			_count++;
+		}
+		else {
+			_invalidCount++;
+		}
+		setValue(average());
+		return true;
+	}
+
+	/**
+     * Checks if the running aggregates match a fresh scan of the interval.
+     *
+     * Stale functions keep no aggregates, so they are always consistent.
+     *
+     * @return {@code true} if the aggregates are consistent, {@code false} otherwise.
+     */
+	@Override
+	public boolean isConsistent() {
+		if (isStale()) {
+			return true;
+		}
+		Sum sum = new Sum();
+		_interval.scanValues(sum);
+		return sum._sum == _sum && sum._count == _count && sum._invalidCount == _invalidCount;
+	}
+
+	/**
+     * Computes the average from the running aggregates.
+     *
+     * @return A {@code LiteralInteger} containing the average, or a {@code LiteralNullFunction} if some value is not an integer.
+     */
+	private Literal average() {
+		if (_invalidCount > 0) {
+			return LiteralNullFunction.getInstance();
+		}
+		return LiteralInteger.valueOf(_sum / _interval.size());
+	}
+
+	/**
+	 * Adds up the integer values of a scan, and counts the values that are and aren't integers.
+	 */
+	private static class Sum implements ValueScanner {
+
+		/** The sum of the integer values scanned so far. */
+		private int _sum = 0;
+
+		/** The number of integer values scanned so far. */
+		private int _count = 0;
+
+		/** The number of values scanned so far that are not integers. */
+		private int _invalidCount = 0;
+
+		@Override
+		public boolean scanInt(int value) {
+			_sum += value;
+			_count++;
+			return true;
+		}
+
+		@Override
+		public boolean scanString(String value) {
+			_invalidCount++;
+			return true;
+		}
+
+		@Override
+		public boolean scanOther(Literal value) {
+			_invalidCount++;
+			return true;
+		}
+
 	}
 	
 }
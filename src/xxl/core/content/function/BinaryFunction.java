@@ -1,18 +1,66 @@
 package xxl.core.content.function;
 
+import java.util.function.LongSupplier;
+
+import xxl.core.DependencyVisitor;
+import xxl.core.Spreadsheet;
 import xxl.core.content.Content;
-import xxl.core.content.Reference;
+import xxl.core.content.Observer;
 import xxl.core.content.literal.Literal;
+import xxl.core.content.literal.LiteralInteger;
+import xxl.core.content.literal.LiteralNullFunction;
 
 /**
  * The {@code BinaryFunction} class represents an abstract binary function in a spreadsheet.
  * It extends the {@link Function} class and provides a common structure for binary operations.
  * Binary functions take two content values as input and produce a result based on a specific function.
+ * The result is cached: the spreadsheet marks it dirty whenever an argument changes, and it is only
+ * computed again the next time it is read.
+ * <p>
+ * The operands are kept in a {@link FormulaTemplate}, relative to the position the function is anchored
+ * at, so functions reading the same offsets share it and only hold their anchor.
+ * <p>
+ * A function of two literals is folded: its value is computed once, when it is made, and never again.
+ * <p>
+ * Subclasses only tell how the operation works on two integers. A function computed often enough is
+ * compiled into a chain of lambdas working on primitive values: literal arguments are folded into
+ * constants, and references are read without wrapping the result in a new literal, so computing it
+ * again neither walks the arguments as contents nor allocates.
  */
-public abstract class BinaryFunction extends Function {
+public abstract class BinaryFunction extends Function implements Observer {
+
+	/** The number of times a function is computed before it is compiled. */
+	private static final int COMPILE_THRESHOLD = 8;
+
+	/** Stands for an operand or a result of the compiled form that is not an integer. */
+	private static final long INVALID = Long.MIN_VALUE;
+
+	/** The operands of the function, relative to its anchor. Possibly shared with other functions. */
+	private final FormulaTemplate _template;
+
+	/** The row the operands are relative to. */
+	private final int _anchorRow;
+
+	/** The column the operands are relative to. */
+	private final int _anchorColumn;
+
+	/** The value computed last. Only meaningful while the function isn't dirty. */
+	private Literal _value = LiteralNullFunction.getInstance();
 
-	/** The array to store the two input contents for the binary operation. */
-	protected Content[] _contents;
+	/** Whether every operand is a literal, so the value was computed when the function was made. */
+	private final boolean _folded;
+
+	/** Whether an argument changed since the value was computed last. */
+	private boolean _dirty = true;
+
+	/** Whether the function is detached, so changes to its arguments no longer reach it. */
+	private boolean _detached;
+
+	/** The number of times the function was computed before being compiled. */
+	private transient int _interpretedCount;
+
+	/** The compiled form of the function, or null until it is computed often enough. Compiled again after loading. */
+	private transient LongSupplier _compiled;
 
 	/**
 	 * Constructs a new {@code BinaryFunction} with two input contents and a specified function name.
@@ -22,10 +70,27 @@ public abstract class BinaryFunction extends Function {
 	 * @param functionName The name of the binary function.
 	 */
 	public BinaryFunction(Content arg1, Content arg2, String functionName) {
+		this(new FormulaTemplate(new Content[] { arg1, arg2 }, 0, 0), 0, 0, functionName);
+	}
+
+	/**
+	 * Constructs a new {@code BinaryFunction} from a template of its operands, anchored at the given position.
+	 *
+	 * @param template     The operands of the function, relative to its anchor.
+	 * @param anchorRow    The row the operands are relative to.
+	 * @param anchorColumn The column the operands are relative to.
+	 * @param functionName The name of the binary function.
+	 */
+	protected BinaryFunction(FormulaTemplate template, int anchorRow, int anchorColumn, String functionName) {
 		super(functionName);
-		_contents = new Content[2];
-		_contents[0] = arg1;
-		_contents[1] = arg2;
+		_template = template;
+		_anchorRow = anchorRow;
+		_anchorColumn = anchorColumn;
+		_folded = template.isConstant();
+		if (_folded) {
+			_value = computeValue();
+			_dirty = false;
+		}
 	}
 
 	/**
@@ -35,35 +100,213 @@ public abstract class BinaryFunction extends Function {
 	 */
 	@Override
 	public String toString() {
-		String arg1 = parseArgument(_contents[0].toString());
-		String arg2 = parseArgument(_contents[1].toString());
-		return getValue() + "=" + getFunctionName() + "(" + arg1 + "," + arg2 + ")";
+		return toString(getValue());
 	}
 
 	/**
-	 * Retrieves the value of this interval function. This method computes and returns the value of the function.
+	 * Returns a string representation of the binary function, showing the given value.
 	 *
-	 * @return The computed value of the interval function as a {@link Literal} object.
+	 * @param value The value to show.
+	 * @return A string in the format "value=functionName(arg1,arg2)".
+	 */
+	@Override
+	public String toString(Literal value) {
+		String arg1 = _template.describe(0, _anchorRow, _anchorColumn);
+		String arg2 = _template.describe(1, _anchorRow, _anchorColumn);
+		return value + "=" + getFunctionName() + "(" + arg1 + "," + arg2 + ")";
+	}
+
+	/**
+	 * Retrieves the value of this binary function, computing it again only if an argument changed since the last time,
+	 * once the stale formulas it reads are settled. A detached function can't tell, so it computes its value every
+	 * time, unless it is folded.
+	 *
+	 * @return The computed value of the binary function as a {@link Literal} object.
 	 */
 	@Override
 	public Literal getValue() {
-		return computeValue();
+		if (!_folded && (_dirty || _detached)) {
+			if (!_detached) {
+				_template.getSpreadsheet().getDependencyGraph().settlePrecedents(this);
+			}
+			// Cleared first, so a function reading itself sees its previous value instead of recursing forever
+			_dirty = false;
+			_value = retain(_value, evaluate());
+		}
+		return _value;
 	}
- 
+
 	/**
-	 * Parses an argument string to extract the wanted portion.
-	 * If the argument is a {@link Reference}, we'll be looking for the "row;column" portion.
-	 * Otherwise, the value will be returned.
+	 * Retrieves the value computed last, without computing it again even if an argument changed since.
 	 *
-	 * @param argument The argument string to parse.
-	 * @return The value portion of the argument string.
+	 * @return The value computed last.
 	 */
-	private String parseArgument(String argument) {
-		if (argument.contains("=")) {
-			String[] args = argument.split("=");
-			return args[1];
+	@Override
+	public Literal getLastValue() {
+		return _value;
+	}
+
+	/**
+	 * Checks if an argument changed since the value was computed last.
+	 *
+	 * @return {@code true} if the function is dirty, {@code false} otherwise.
+	 */
+	@Override
+	public boolean isStale() {
+		return !_folded && _dirty;
+	}
+
+	/**
+	 * Performs the operation on two integer arguments.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return The result of the operation.
+	 */
+	protected abstract int apply(int first, int second);
+
+	/**
+	 * Checks if the operation is defined for two integer arguments. Operations are defined for any
+	 * arguments by default.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return {@code true} if the operation is defined, {@code false} otherwise.
+	 */
+	protected boolean isDefined(int first, int second) {
+		return true;
+	}
+
+	/**
+	 * Computes the result of the operation by reading both arguments as literals.
+	 * If an argument isn't an integer or the operation isn't defined for them, it returns a null value.
+	 *
+	 * @return A {@code LiteralInteger} containing the result, or a {@code LiteralNullFunction} if an error occurs.
+	 */
+	@Override
+	protected Literal computeValue() {
+		Literal arg1 = _template.valueOf(0, _anchorRow, _anchorColumn);
+		Literal arg2 = _template.valueOf(1, _anchorRow, _anchorColumn);
+		if (!arg1.isInt() || !arg2.isInt() || !isDefined(arg1.intValueOr(0), arg2.intValueOr(0))) {
+			return LiteralNullFunction.getInstance();
 		}
-		return argument;
+		return LiteralInteger.valueOf(apply(arg1.intValueOr(0), arg2.intValueOr(0)));
+	}
+
+	/**
+	 * Checks if the function was computed often enough to be compiled.
+	 *
+	 * @return {@code true} if the function is compiled, {@code false} otherwise.
+	 */
+	public boolean isCompiled() {
+		return _compiled != null;
+	}
+
+	/**
+	 * Computes the value of the function, through its compiled form once it is computed often enough.
+	 * An integer result equal to the previous value hands back the previous literal, so nothing is allocated.
+	 *
+	 * @return The value of the function.
+	 */
+	private Literal evaluate() {
+		if (_compiled == null) {
+			if (++_interpretedCount < COMPILE_THRESHOLD) {
+				return computeValue();
+			}
+			_compiled = compile();
+		}
+		long result = _compiled.getAsLong();
+		if (result == INVALID) {
+			return LiteralNullFunction.getInstance();
+		}
+		if (_value.isInt() && _value.intValueOr(0) == (int) result) {
+			return _value;
+		}
+		return LiteralInteger.valueOf((int) result);
+	}
+
+	/**
+	 * Compiles the function into a lambda computing its result as a primitive value, or {@link #INVALID}.
+	 * Folded functions are never computed again, so at least one operand reads a position.
+	 *
+	 * @return The compiled form of the function.
+	 */
+	private LongSupplier compile() {
+		LongSupplier first = compile(0);
+		LongSupplier second = compile(1);
+		return () -> combine(first.getAsLong(), second.getAsLong());
+	}
+
+	/**
+	 * Compiles an operand into a lambda reading it as a primitive value, or {@link #INVALID}.
+	 * Literals never change, so they are read once, here, and the position read by any other operand is
+	 * worked out once as well.
+	 *
+	 * @param operand The index of the operand to compile.
+	 * @return The compiled operand.
+	 */
+	private LongSupplier compile(int operand) {
+		if (_template.isConstant(operand)) {
+			Literal literal = _template.valueOf(operand, _anchorRow, _anchorColumn);
+			long constant = literal.isInt() ? literal.intValueOr(0) : INVALID;
+			return () -> constant;
+		}
+		Spreadsheet spreadsheet = _template.getSpreadsheet();
+		int row = _template.rowOf(operand, _anchorRow);
+		int column = _template.columnOf(operand, _anchorColumn);
+		return () -> {
+			Literal value = spreadsheet.resolveReference(row, column);
+			return value.isInt() ? value.intValueOr(0) : INVALID;
+		};
+	}
+
+	/**
+	 * Performs the operation on two compiled operands.
+	 *
+	 * @param first  The first operand, or {@link #INVALID}.
+	 * @param second The second operand, or {@link #INVALID}.
+	 * @return The result of the operation, or {@link #INVALID} if it has none.
+	 */
+	private long combine(long first, long second) {
+		if (first == INVALID || second == INVALID || !isDefined((int) first, (int) second)) {
+			return INVALID;
+		}
+		return apply((int) first, (int) second);
+	}
+
+	/**
+	 * Called when an argument of the function changed. The value is only marked dirty, not computed.
+	 */
+	@Override
+	public void update() {
+		_dirty = true;
+	}
+
+	/**
+	 * Marks the function as detached, as changes to the arguments stop being reported from here on.
+	 */
+	@Override
+	public void detach() {
+		_detached = true;
+	}
+
+	/**
+	 * Marks the function as attached again, computing its value the next time it is read.
+	 */
+	@Override
+	public void attach() {
+		_detached = false;
+		_dirty = true;
+	}
+ 
+	/**
+	 * Accepts a dependency visitor, handing it both arguments, which are the positions this function reads.
+	 *
+	 * @param visitor The dependency visitor to accept.
+	 */
+	@Override
+	public void accept(DependencyVisitor visitor) {
+		_template.accept(visitor, _anchorRow, _anchorColumn);
 	}
 	
 }
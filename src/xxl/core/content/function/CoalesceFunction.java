@@ -1,12 +1,9 @@
 package xxl.core.content.function;
 
-import java.util.List;
-
 import xxl.core.Interval;
-import xxl.core.content.Content;
+import xxl.core.ValueScanner;
 import xxl.core.content.literal.Literal;
 import xxl.core.content.literal.LiteralString;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code CoalesceFunction} class represents a function that returns the first non-null string value
@@ -31,15 +28,35 @@ public class CoalesceFunction extends IntervalFunction {
      */
 	@Override
 	protected Literal computeValue() {
-		List<Content> intervalContents = _interval.getContent();
-		for (Content content: intervalContents) {
-			try {
-				return new LiteralString(content.getValue().getStringValue());
-			}
-			catch (InvalidValueTypeException e) {
-			}
+		FirstString first = new FirstString();
+		_interval.scanValues(first);
+		return new LiteralString(first._value);
+	}
+
+	/**
+	 * Keeps the first string value of a scan, stopping as soon as it is found.
+	 */
+	private static class FirstString implements ValueScanner {
+
+		/** The first string found, or an empty string while there is none. */
+		private String _value = "";
+
+		@Override
+		public boolean scanInt(int value) {
+			return true;
 		}
-		return new LiteralString("");
+
+		@Override
+		public boolean scanString(String value) {
+			_value = value;
+			return false;
+		}
+
+		@Override
+		public boolean scanOther(Literal value) {
+			return true;
+		}
+
 	}
 	
 }
@@ -1,12 +1,9 @@
 package xxl.core.content.function;
 
-import java.util.List;
-
 import xxl.core.Interval;
-import xxl.core.content.Content;
+import xxl.core.ValueScanner;
 import xxl.core.content.literal.Literal;
 import xxl.core.content.literal.LiteralString;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code ConcatFunction} class represents a function that concatenates the string values of
@@ -31,17 +28,36 @@ public class ConcatFunction extends IntervalFunction {
      */
     @Override
 	protected Literal computeValue() {
-		List<Content> intervalContents = _interval.getContent();
-        String concatStrings = "";
-        for (Content content: intervalContents) {
-            try {
-                // Concatenates each String
-                concatStrings += content.getValue().getStringValue();
-            }
-            catch (InvalidValueTypeException e) {
-            }
-        }
-        return new LiteralString(concatStrings);
+		Concatenation concatenation = new Concatenation();
+		_interval.scanValues(concatenation);
+        return new LiteralString(concatenation._strings.toString());
 	}
+
+    /**
+     * Concatenates the string values of a scan, skipping every other value.
+     */
+    private static class Concatenation implements ValueScanner {
+
+        /** The strings concatenated so far. */
+        private final StringBuilder _strings = new StringBuilder();
+
+        @Override
+        public boolean scanInt(int value) {
+            return true;
+        }
+
+        @Override
+        public boolean scanString(String value) {
+            // Concatenates each String
+            _strings.append(value);
+            return true;
+        }
+
+        @Override
+        public boolean scanOther(Literal value) {
+            return true;
+        }
+
+    }
     
 }
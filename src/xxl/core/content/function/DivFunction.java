@@ -1,10 +1,6 @@
 package xxl.core.content.function;
 
 import xxl.core.content.Content;
-import xxl.core.content.literal.Literal;
-import xxl.core.content.literal.LiteralInteger;
-import xxl.core.content.literal.LiteralNullFunction;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code DivFunction} class represents a division operation in a spreadsheet.
@@ -24,20 +20,38 @@ public class DivFunction extends BinaryFunction {
 	}
 
 	/**
-	 * Computes the result of the division operation and returns it as a {@link LiteralInteger}.
+	 * Constructs a new {@code DivFunction} from a template of its operands, anchored at the given position.
 	 *
-	 * @return The result of the division operation as a {@link LiteralInteger}.
+	 * @param template     The operands of the division, relative to the anchor.
+	 * @param anchorRow    The row the operands are relative to.
+	 * @param anchorColumn The column the operands are relative to.
+	 */
+	public DivFunction(FormulaTemplate template, int anchorRow, int anchorColumn) {
+		super(template, anchorRow, anchorColumn, "DIV");
+	}
+
+	/**
+	 * Performs the division on two integer arguments.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return The quotient of the arguments, rounded towards zero.
+	 */
+	@Override
+	protected int apply(int first, int second) {
+		return first / second;
+	}
+
+	/**
+	 * Checks if the division is defined, which it isn't when dividing by zero.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return {@code true} if the second argument is not zero, {@code false} otherwise.
 	 */
 	@Override
-	protected Literal computeValue() {
-		Literal arg1 = super._contents[0].getValue();
-		Literal arg2 = super._contents[1].getValue();
-		try {
-			return new LiteralInteger(arg1.getIntValue() / arg2.getIntValue());
-		}
-		catch (InvalidValueTypeException | ArithmeticException e) {
-			return new LiteralNullFunction();
-		}
+	protected boolean isDefined(int first, int second) {
+		return second != 0;
 	}
 
 }
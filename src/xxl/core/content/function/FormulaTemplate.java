@@ -0,0 +1,199 @@
+package xxl.core.content.function;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import xxl.core.DependencyVisitor;
+import xxl.core.Spreadsheet;
+import xxl.core.content.Content;
+import xxl.core.content.Reference;
+import xxl.core.content.literal.Literal;
+
+/**
+ * The {@code FormulaTemplate} class holds the operands of a binary function relative to the position the
+ * function is anchored at, R1C1 style: each operand is either a literal or an offset from that position.
+ * Templates are immutable, so every function reading the same offsets shares a single one, and each
+ * function only keeps its anchor. A column of formulas filled down, such as {@code =ADD(1;1,1;2)},
+ * {@code =ADD(2;1,2;2)} and so on, ends up with one template and a pair of coordinates per formula,
+ * instead of its own references and positions.
+ * <p>
+ * A template made for a function anchored at the origin holds the absolute coordinates of the operands.
+ *
+ * @Serial 202610171700L
+ */
+public class FormulaTemplate implements Serializable {
+
+	/** The spreadsheet the operands read, or null if every operand is a literal. */
+	private final Spreadsheet _spreadsheet;
+
+	/** The literal of each operand, or null for the operands that read a position. */
+	private final Literal[] _constants;
+
+	/** The row offset of each operand from the anchor. Only meaningful for the operands that read a position. */
+	private final int[] _rowOffsets;
+
+	/** The column offset of each operand from the anchor. Only meaningful for the operands that read a position. */
+	private final int[] _columnOffsets;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171700L;
+
+	/**
+	 * Constructs a template from the operands of a function anchored at the given position.
+	 *
+	 * @param operands     The operands, each one a literal or a reference.
+	 * @param anchorRow    The row the function is anchored at.
+	 * @param anchorColumn The column the function is anchored at.
+	 * @throws IllegalArgumentException if an operand is neither a literal nor a reference.
+	 */
+	public FormulaTemplate(Content[] operands, int anchorRow, int anchorColumn) {
+		Spreadsheet spreadsheet = null;
+		_constants = new Literal[operands.length];
+		_rowOffsets = new int[operands.length];
+		_columnOffsets = new int[operands.length];
+		for (int i = 0; i < operands.length; i++) {
+			if (operands[i] instanceof Literal literal) {
+				_constants[i] = literal;
+			}
+			else if (operands[i] instanceof Reference reference) {
+				spreadsheet = reference.getSpreadsheet();
+				_rowOffsets[i] = reference.getPosition().getRow() - anchorRow;
+				_columnOffsets[i] = reference.getPosition().getColumn() - anchorColumn;
+			}
+			else {
+				throw new IllegalArgumentException("Operands must be literals or references: " + operands[i]);
+			}
+		}
+		_spreadsheet = spreadsheet;
+	}
+
+	/**
+	 * Retrieves the number of operands.
+	 *
+	 * @return The number of operands.
+	 */
+	public int size() {
+		return _constants.length;
+	}
+
+	/**
+	 * Checks if every operand is a literal, so a function of this template always has the same value.
+	 *
+	 * @return {@code true} if no operand reads a position, {@code false} otherwise.
+	 */
+	public boolean isConstant() {
+		return _spreadsheet == null;
+	}
+
+	/**
+	 * Checks if an operand is a literal, whose value never changes.
+	 *
+	 * @param operand The index of the operand.
+	 * @return {@code true} if the operand is a literal, {@code false} if it reads a position.
+	 */
+	public boolean isConstant(int operand) {
+		return _constants[operand] != null;
+	}
+
+	/**
+	 * Retrieves the spreadsheet the operands read.
+	 *
+	 * @return The spreadsheet, or null if every operand is a literal.
+	 */
+	public Spreadsheet getSpreadsheet() {
+		return _spreadsheet;
+	}
+
+	/**
+	 * Retrieves the row an operand reads, for a function anchored at the given row.
+	 *
+	 * @param operand   The index of the operand.
+	 * @param anchorRow The row the function is anchored at.
+	 * @return The row read.
+	 */
+	public int rowOf(int operand, int anchorRow) {
+		return anchorRow + _rowOffsets[operand];
+	}
+
+	/**
+	 * Retrieves the column an operand reads, for a function anchored at the given column.
+	 *
+	 * @param operand      The index of the operand.
+	 * @param anchorColumn The column the function is anchored at.
+	 * @return The column read.
+	 */
+	public int columnOf(int operand, int anchorColumn) {
+		return anchorColumn + _columnOffsets[operand];
+	}
+
+	/**
+	 * Retrieves the value of an operand, for a function anchored at the given position.
+	 * Positions are read the way a reference to them reads them.
+	 *
+	 * @param operand      The index of the operand.
+	 * @param anchorRow    The row the function is anchored at.
+	 * @param anchorColumn The column the function is anchored at.
+	 * @return The value of the operand.
+	 */
+	public Literal valueOf(int operand, int anchorRow, int anchorColumn) {
+		if (_constants[operand] != null) {
+			return _constants[operand];
+		}
+		return _spreadsheet.resolveReference(rowOf(operand, anchorRow), columnOf(operand, anchorColumn));
+	}
+
+	/**
+	 * Shows an operand the way it was written, for a function anchored at the given position:
+	 * a literal as itself, and a position read as its "row;column".
+	 *
+	 * @param operand      The index of the operand.
+	 * @param anchorRow    The row the function is anchored at.
+	 * @param anchorColumn The column the function is anchored at.
+	 * @return The operand as written.
+	 */
+	public String describe(int operand, int anchorRow, int anchorColumn) {
+		if (_constants[operand] != null) {
+			return _constants[operand].toString();
+		}
+		return rowOf(operand, anchorRow) + ";" + columnOf(operand, anchorColumn);
+	}
+
+	/**
+	 * Accepts a dependency visitor, handing it the positions read by a function anchored at the given position.
+	 *
+	 * @param visitor      The dependency visitor to accept.
+	 * @param anchorRow    The row the function is anchored at.
+	 * @param anchorColumn The column the function is anchored at.
+	 */
+	public void accept(DependencyVisitor visitor, int anchorRow, int anchorColumn) {
+		for (int operand = 0; operand < size(); operand++) {
+			if (_constants[operand] == null) {
+				visitor.visit(_spreadsheet, rowOf(operand, anchorRow), columnOf(operand, anchorColumn));
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the relative form of the operands, R1C1 style, which is the same for every function
+	 * that can share this template.
+	 *
+	 * @return The operands, separated by commas, literals as written and positions read as "R[rows]C[columns]".
+	 */
+	public String getSignature() {
+		StringBuilder signature = new StringBuilder();
+		for (int operand = 0; operand < size(); operand++) {
+			if (operand > 0) {
+				signature.append(',');
+			}
+			if (_constants[operand] != null) {
+				signature.append(_constants[operand]);
+			}
+			else {
+				signature.append("R[").append(_rowOffsets[operand]).append("]C[").append(_columnOffsets[operand]).append(']');
+			}
+		}
+		return signature.toString();
+	}
+
+}
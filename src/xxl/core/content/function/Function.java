@@ -1,8 +1,7 @@
 package xxl.core.content.function;
 
-import xxl.core.ReferenceUpdateVisitor;
+import xxl.core.DependencyVisitor;
 import xxl.core.content.Content;
-import xxl.core.content.Observer;
 import xxl.core.content.literal.Literal;
 import xxl.core.search.SearchVisitor;
 
@@ -49,6 +48,18 @@ public abstract class Function extends Content {
 	 */
 	protected abstract Literal computeValue();
 
+	/**
+	 * Chooses between the previous value of the function and a newly computed one, keeping the previous
+	 * literal when both hold the same value. Whoever compares the two then finds the very same literal.
+	 *
+	 * @param previous The previous value of the function, or {@code null} if there is none.
+	 * @param computed The newly computed value.
+	 * @return The previous value if it holds the same value as the computed one, the computed one otherwise.
+	 */
+	protected static Literal retain(Literal previous, Literal computed) {
+		return previous != null && previous.hasSameValue(computed) ? previous : computed;
+	}
+
 	/**
 	 * Accepts a search visitor to visit and process this object.
 	 *
@@ -60,14 +71,13 @@ public abstract class Function extends Content {
 	}
 
 	/**
-	 * Accepts a reference update visitor along with an observer to visit and update this object.
+	 * Accepts a dependency visitor, which collects the positions this function reads.
 	 *
-	 * @param visitor The reference update visitor to accept.
-	 * @param observer The observer to be used for updates.
+	 * @param visitor The dependency visitor to accept.
 	 */
 	@Override
-	public void accept(ReferenceUpdateVisitor visitor, Observer observer) {
-		visitor.visit(this, observer);
+	public void accept(DependencyVisitor visitor) {
+		visitor.visit(this);
 	}
 
 }
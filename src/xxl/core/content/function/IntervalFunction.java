@@ -1,12 +1,19 @@
 package xxl.core.content.function;
 
+import xxl.core.DependencyGraph;
+import xxl.core.DependencyVisitor;
 import xxl.core.Interval;
 import xxl.core.content.Observer;
 import xxl.core.content.literal.Literal;
+import xxl.core.content.literal.LiteralNullFunction;
 
 /**
  * The {@code IntervalFunction} class represents an abstract function in a spreadsheet that operates on an interval.
  * It extends the {@link Function} class and adds the concept of an interval to the function.
+ * <p>
+ * While the dependency graph of its spreadsheet evaluates lazily, the function isn't computed when it is
+ * made nor when it is updated: it is only marked stale, and computed the next time it is read. A function
+ * nobody reads then never scans its interval, however many changes reach it.
  */
 public abstract class IntervalFunction extends Function implements Observer {
 
@@ -16,6 +23,12 @@ public abstract class IntervalFunction extends Function implements Observer {
 	/** The current value of the function. Will be recomputed when updated. */
 	private Literal _value;
 
+	/** Whether the function is detached, so changes to its interval no longer reach it. */
+	private boolean _detached;
+
+	/** Whether the function must be computed before its value is read again. */
+	private boolean _stale;
+
 	/**
      * Constructs a new instance of the IntervalFunction class with the specified interval and function name.
      *
@@ -25,27 +38,115 @@ public abstract class IntervalFunction extends Function implements Observer {
 	protected IntervalFunction(Interval arg, String functionName) {
 		super(functionName);
 		_interval = arg;
-		_interval.addObserverToCells(this);
-		_value = computeValue();
+		update();
 	}
 
 	/**
      * Gets the current value of the interval function.
+     * A detached function is no longer kept up to date, so it computes its value every time, and a stale
+     * one computes it now, once the stale formulas it reads are settled.
      *
      * @return The current computed value of the function.
      */
 	@Override
 	public Literal getValue() {
+		if (_detached) {
+			_value = retain(_value, computeValue());
+		}
+		else if (_stale) {
+			getDependencyGraph().settlePrecedents(this);
+			// Cleared first, so a function reading itself sees its previous value instead of recursing forever
+			_stale = false;
+			_value = retain(_value, computeValue());
+			getDependencyGraph().countLazyComputation();
+		}
 		return _value;
 	}
 
+	/**
+     * Retrieves the value computed last, without computing it again even if it is stale.
+     *
+     * @return The value computed last, or a null value if the function was never computed.
+     */
+	@Override
+	public Literal getLastValue() {
+		Literal value = _value;
+		return value != null ? value : LiteralNullFunction.getInstance();
+	}
+
+	/**
+     * Checks if the function must be computed before its value is read again. The running aggregates of a
+     * stale function are not kept, so it can't be updated incrementally.
+     *
+     * @return {@code true} if the function is stale, {@code false} otherwise.
+     */
+	@Override
+	public boolean isStale() {
+		return _stale;
+	}
+
+	/**
+     * Sets the current value of the interval function, for subclasses that keep it up to date incrementally.
+     *
+     * @param value The new value of the function.
+     */
+	protected void setValue(Literal value) {
+		_value = retain(_value, value);
+	}
+
+	/**
+     * Accepts a dependency visitor, handing it the interval, which is what this function reads.
+     *
+     * @param visitor The dependency visitor to accept.
+     */
+	@Override
+	public void accept(DependencyVisitor visitor) {
+		visitor.visit(_interval);
+	}
+
+	/**
+     * Marks the function as detached, as the changes to its interval stop reaching it.
+     */
+	@Override
+	public void detach() {
+		_detached = true;
+	}
+
+	/**
+     * Recomputes the function if it was detached, as the state backing incremental updates may have gone stale.
+     */
+	@Override
+	public void attach() {
+		if (_detached) {
+			_detached = false;
+			update();
+		}
+	}
+
 	/**
      * Called when the function needs to update its value, typically triggered by changes in the interval's cells.
-     * It recomputes the function's value based on the current state of the interval.
+     * It recomputes the function's value based on the current state of the interval, or only marks it
+     * stale while its spreadsheet evaluates lazily. Marking a stale function again avoids a computation.
      */
 	@Override 
 	public void update() {
-		_value = computeValue();
+		DependencyGraph graph = getDependencyGraph();
+		if (graph.isLazyEvaluation()) {
+			_stale = true;
+			graph.countDeferredComputation();
+			return;
+		}
+		_stale = false;
+		_value = retain(_value, computeValue());
+	}
+
+	/**
+     * Retrieves the dependency graph of the spreadsheet the interval belongs to.
+     *
+     * @return The dependency graph.
+     */
+	private DependencyGraph getDependencyGraph() {
+		return _interval.getLinkedSpreadsheet().getDependencyGraph();
 	}
 
 	/**
@@ -55,6 +156,17 @@ public abstract class IntervalFunction extends Function implements Observer {
      */
 	@Override
 	public String toString() {
-		return getValue() + "=" + getFunctionName() + "(" + _interval + ")";
+		return toString(getValue());
+	}
+
+	/**
+     * Returns a string representation of the IntervalFunction, showing the given value.
+     *
+     * @param value The value to show.
+     * @return A string in the format "value=functionName(interval)".
+     */
+	@Override
+	public String toString(Literal value) {
+		return value + "=" + getFunctionName() + "(" + _interval + ")";
 	}
 }
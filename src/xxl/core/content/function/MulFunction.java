@@ -1,10 +1,6 @@
 package xxl.core.content.function;
 
 import xxl.core.content.Content;
-import xxl.core.content.literal.Literal;
-import xxl.core.content.literal.LiteralInteger;
-import xxl.core.content.literal.LiteralNullFunction;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code MulFunction} class represents a multiplication function in a spreadsheet.
@@ -24,20 +20,26 @@ public class MulFunction extends BinaryFunction {
 	}
 
 	/**
-	 * Calculates the result of multiplying the two content values represented by this function.
+	 * Constructs a new {@code MulFunction} from a template of its operands, anchored at the given position.
 	 *
-	 * @return A {@link LiteralInteger} representing the result of the multiplication.
+	 * @param template     The operands of the multiplication, relative to the anchor.
+	 * @param anchorRow    The row the operands are relative to.
+	 * @param anchorColumn The column the operands are relative to.
+	 */
+	public MulFunction(FormulaTemplate template, int anchorRow, int anchorColumn) {
+		super(template, anchorRow, anchorColumn, "MUL");
+	}
+
+	/**
+	 * Performs the multiplication on two integer arguments.
+	 *
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @return The product of the arguments, wrapped around like {@code int} multiplication.
 	 */
 	@Override
-	protected Literal computeValue() {
-		Literal arg1 = super._contents[0].getValue();
-		Literal arg2 = super._contents[1].getValue();
-		try {
-			return new LiteralInteger(arg1.getIntValue() * arg2.getIntValue());
-		}
-		catch (InvalidValueTypeException e) {
-			return new LiteralNullFunction();
-		}
+	protected int apply(int first, int second) {
+		return first * second;
 	}
 	
 }
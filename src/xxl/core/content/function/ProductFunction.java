@@ -1,20 +1,39 @@
 package xxl.core.content.function;
 
-import java.util.List;
-
 import xxl.core.Interval;
-import xxl.core.content.Content;
+import xxl.core.Position;
+import xxl.core.ValueScanner;
 import xxl.core.content.literal.Literal;
 import xxl.core.content.literal.LiteralInteger;
 import xxl.core.content.literal.LiteralNullFunction;
-import xxl.core.exception.InvalidValueTypeException;
 
 /**
  * The {@code ProductFunction} class represents a function that calculates the product of integer values
  * within an interval. If the values cannot be converted to integers, it returns a null value.
+ * <p>
+ * The function keeps the product of the non-zero factors of its interval, and how many factors are zero
+ * and how many values aren't integers, so a change to a single value is accounted for without scanning
+ * the interval again. The product wraps around like {@code int} multiplication does, which rules out
+ * taking a factor back out by division. Each non-zero factor is therefore split into an odd part and a
+ * power of two: odd numbers can be taken back out by multiplying by their inverse modulo 2<sup>32</sup>,
+ * and powers of two are only counted.
  */
 public class ProductFunction extends IntervalFunction {
 
+	// These are set by computeValue, which the superclass constructor may already call, so they have no initializers
+
+	/** The product of the odd parts of the non-zero factors of the interval, wrapped around. */
+	private int _oddProduct;
+
+	/** The number of factors of two in the non-zero factors of the interval. */
+	private int _twos;
+
+	/** The number of factors of the interval that are zero. */
+	private int _zeroCount;
+
+	/** The number of values of the interval that are not integers. */
+	private int _invalidCount;
+
 	/**
 	 * Constructs a {@code ProductFunction} with the given interval argument.
 	 *
@@ -27,22 +46,153 @@ public class ProductFunction extends IntervalFunction {
 	/**
 	 * Computes the result of the PRODUCT function by calculating the product of integer values within the interval.
 	 * If any value cannot be converted to an integer, it returns a null value.
+	 * The whole interval is scanned, so the running aggregates start over from it.
 	 *
 	 * @return A {@code LiteralInteger} containing the product of the integer values, or a {@code LiteralNullFunction} if an error occurs.
 	 */
 	@Override
 	protected Literal computeValue() {
-		List<Content> intervalContents = _interval.getContent();
-		try {
-			int product = 1;
-			for (Content content: intervalContents) {
-				product = product * content.getValue().getIntValue();
+		Product product = new Product();
+		_interval.scanValues(product);
+		_oddProduct = product._oddProduct;
+		_twos = product._twos;
+		_zeroCount = product._zeroCount;
+		_invalidCount = product._invalidCount;
+		return product();
+	}
+
+	/**
+	 * Accounts for a change to a single value of the interval, by taking the old factor out of the running
+	 * aggregates and putting the new one in.
+	 *
+	 * @param position The position whose value changed.
+	 * @param oldValue The value at the position before the change.
+	 * @param newValue The value at the position after the change.
+	 * @return {@code true} if the function is up to date with the change, {@code false} if it is stale.
+	 */
+	@Override
+	public boolean update(Position position, Literal oldValue, Literal newValue) {
+		if (isStale()) {
+			return false;
+		}
+		if (!oldValue.isInt()) {
+			_invalidCount--;
+		}
+		else if (oldValue.intValueOr(0) == 0) {
+			_zeroCount--;
+		}
+		else {
+			int factor = oldValue.intValueOr(0);
+			int twos = Integer.numberOfTrailingZeros(factor);
+			_oddProduct *= inverse(factor >> twos);
+			_twos -= twos;
+		}
+		if (!newValue.isInt()) {
+			_invalidCount++;
+		}
+		else if (newValue.intValueOr(0) == 0) {
+			_zeroCount++;
+		}
+		else {
+			int factor = newValue.intValueOr(0);
+			int twos = Integer.numberOfTrailingZeros(factor);
+			_oddProduct *= factor >> twos;
+			_twos += twos;
+		}
+		setValue(product());
+		return true;
+	}
+
+	/**
+	 * Checks if the running aggregates match a fresh scan of the interval.
+	 *
+	 * Stale functions keep no aggregates, so they are always consistent.
+	 *
+	 * @return {@code true} if the aggregates are consistent, {@code false} otherwise.
+	 */
+	@Override
+	public boolean isConsistent() {
+		if (isStale()) {
+			return true;
+		}
+		Product product = new Product();
+		_interval.scanValues(product);
+		return product._oddProduct == _oddProduct && product._twos == _twos
+				&& product._zeroCount == _zeroCount && product._invalidCount == _invalidCount;
+	}
+
+	/**
+	 * Computes the product from the running aggregates.
+	 *
+	 * @return A {@code LiteralInteger} containing the product, or a {@code LiteralNullFunction} if some value is not an integer.
+	 */
+	private Literal product() {
+		if (_invalidCount > 0) {
+			return LiteralNullFunction.getInstance();
+		}
+		if (_zeroCount > 0 || _twos >= Integer.SIZE) {
+			return LiteralInteger.valueOf(0);
+		}
+		return LiteralInteger.valueOf(_oddProduct << _twos);
+	}
+
+	/**
+	 * Computes the inverse of an odd number modulo 2<sup>32</sup>, by Newton's iteration.
+	 * Every odd number is its own inverse modulo 8, and each step doubles the number of correct bits.
+	 *
+	 * @param odd The odd number to invert.
+	 * @return The number that, multiplied by the given one, wraps around to 1.
+	 */
+	private static int inverse(int odd) {
+		int inverse = odd;
+		for (int i = 0; i < 4; i++) {
+			inverse *= 2 - odd * inverse;
+		}
+		return inverse;
+	}
+
+	/**
+	 * Multiplies the odd parts of the non-zero integer values of a scan, and counts their factors of two,
+	 * the zeros and the values that are not integers.
+	 */
+	private static class Product implements ValueScanner {
+
+		/** The product of the odd parts of the non-zero values scanned so far. */
+		private int _oddProduct = 1;
+
+		/** The number of factors of two in the non-zero values scanned so far. */
+		private int _twos = 0;
+
+		/** The number of zeros scanned so far. */
+		private int _zeroCount = 0;
+
+		/** The number of values scanned so far that are not integers. */
+		private int _invalidCount = 0;
+
+		@Override
+		public boolean scanInt(int value) {
+			if (value == 0) {
+				_zeroCount++;
+				return true;
 			}
-			return new LiteralInteger(product);
+			int twos = Integer.numberOfTrailingZeros(value);
+			_oddProduct *= value >> twos;
+			_twos += twos;
+			return true;
+		}
+
+		@Override
+		public boolean scanString(String value) {
+			_invalidCount++;
+			return true;
 		}
-		catch (InvalidValueTypeException e) {
-			return new LiteralNullFunction();
+
+		@Override
+		public boolean scanOther(Literal value) {
+			_invalidCount++;
+			return true;
 		}
+
 	}
 	
-}
\ No newline at end of file
+}
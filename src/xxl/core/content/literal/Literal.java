@@ -1,8 +1,7 @@
 package xxl.core.content.literal;
 
-import xxl.core.ReferenceUpdateVisitor;
+import xxl.core.DependencyVisitor;
 import xxl.core.content.Content;
-import xxl.core.content.Observer;
 import xxl.core.exception.InvalidValueTypeException;
 import xxl.core.search.SearchVisitor;
 
@@ -10,9 +9,77 @@ import xxl.core.search.SearchVisitor;
  * The {@code Literal} abstract class represents a literal value in a spreadsheet.
  * It serves as the base class for specific literal types such as integers, strings, or null values.
  * Subclasses must implement methods to retrieve integer and string values.
+ * <p>
+ * The kind of a literal can be checked up front with {@link #getKind()}, {@link #isInt()} and
+ * {@link #isString()}, and its value read with {@link #intValueOr(int)} and {@link #stringValueOr(String)},
+ * so code going through many values of mixed types never has to rely on exceptions.
  */
 abstract public class Literal extends Content {
 
+	/**
+	 * The kinds of literals.
+	 */
+	public enum Kind {
+
+		/** An integer, read with {@link Literal#intValueOr(int)}. */
+		INTEGER,
+
+		/** A string, read with {@link Literal#stringValueOr(String)}. */
+		STRING,
+
+		/** The value of an empty position. */
+		EMPTY,
+
+		/** The value of a function that could not be computed. */
+		ERROR
+
+	}
+
+	/**
+	 * Retrieves the kind of the literal.
+	 *
+	 * @return The kind of the literal.
+	 */
+	abstract public Kind getKind();
+
+	/**
+	 * Checks if the literal is an integer.
+	 *
+	 * @return {@code true} if the literal is an integer, {@code false} otherwise.
+	 */
+	public boolean isInt() {
+		return getKind() == Kind.INTEGER;
+	}
+
+	/**
+	 * Checks if the literal is a string.
+	 *
+	 * @return {@code true} if the literal is a string, {@code false} otherwise.
+	 */
+	public boolean isString() {
+		return getKind() == Kind.STRING;
+	}
+
+	/**
+	 * Retrieves the value of the literal as an integer, without throwing if it is not one.
+	 *
+	 * @param defaultValue The value to return if the literal is not an integer.
+	 * @return The integer value of the literal, or the default value.
+	 */
+	public int intValueOr(int defaultValue) {
+		return defaultValue;
+	}
+
+	/**
+	 * Retrieves the value of the literal as a string, without throwing if it is not one.
+	 *
+	 * @param defaultValue The value to return if the literal is not a string.
+	 * @return The string value of the literal, or the default value.
+	 */
+	public String stringValueOr(String defaultValue) {
+		return defaultValue;
+	}
+
 	/**
 	 * Retrieves the value of the literal as an integer.
 	 *
@@ -29,6 +96,27 @@ abstract public class Literal extends Content {
 	 */
 	abstract public String getStringValue() throws InvalidValueTypeException;
 
+	/**
+	 * Checks if another literal holds the same value: both integers or both strings holding the same
+	 * value, or both empty or both errors.
+	 *
+	 * @param other The literal to compare with.
+	 * @return {@code true} if the values are the same, {@code false} otherwise.
+	 */
+	public boolean hasSameValue(Literal other) {
+		if (this == other) {
+			return true;
+		}
+		if (getKind() != other.getKind()) {
+			return false;
+		}
+		return switch (getKind()) {
+			case INTEGER -> intValueOr(0) == other.intValueOr(0);
+			case STRING -> stringValueOr("").equals(other.stringValueOr(""));
+			default -> true;
+		};
+	}
+
 	/**
 	 * Returns the literal itself as its value.
 	 *
@@ -50,14 +138,13 @@ abstract public class Literal extends Content {
 	}
 
 	/**
-     * Accepts a reference update visitor along with an observer to visit and update this literal.
+     * Accepts a dependency visitor, which collects the positions this literal reads.
      *
-     * @param visitor The reference update visitor to accept.
-     * @param observer The observer to be used for updates.
+     * @param visitor The dependency visitor to accept.
      */
 	@Override
-	public void accept(ReferenceUpdateVisitor visitor, Observer observer) {
-		visitor.visit(this, observer);
+	public void accept(DependencyVisitor visitor) {
+		visitor.visit(this);
 	}
 
 }
@@ -9,8 +9,17 @@ import xxl.core.exception.InvalidValueTypeException;
  */
 public class LiteralInteger extends Literal {
 
+	/** The smallest value served from the cache. */
+	private static final int CACHE_LOW = -128;
+
+	/** The largest value served from the cache. */
+	private static final int CACHE_HIGH = 1023;
+
+	/** The shared literals of the values from {@value #CACHE_LOW} to {@value #CACHE_HIGH}, created when first needed. */
+	private static final LiteralInteger[] CACHE = new LiteralInteger[CACHE_HIGH - CACHE_LOW + 1];
+
 	/** The integer value stored in the literal. */
-	private int _value;
+	private final int _value;
 
 	/**
 	 * Constructs a new {@code LiteralInteger} with the specified integer value.
@@ -21,6 +30,36 @@ public class LiteralInteger extends Literal {
 		_value = value;
 	}
 
+	/**
+	 * Gets a literal holding the specified integer value. Small values are served from a cache, as
+	 * literals are immutable, so recalculating formulas that produce them allocates nothing.
+	 *
+	 * @param value The integer value of the literal.
+	 * @return A literal holding the value.
+	 */
+	public static LiteralInteger valueOf(int value) {
+		if (value < CACHE_LOW || value > CACHE_HIGH) {
+			return new LiteralInteger(value);
+		}
+		LiteralInteger literal = CACHE[value - CACHE_LOW];
+		if (literal == null) {
+			// A race here only costs a duplicate literal
+			literal = new LiteralInteger(value);
+			CACHE[value - CACHE_LOW] = literal;
+		}
+		return literal;
+	}
+
+	/**
+	 * Retrieves the kind of the literal, which is always an integer.
+	 *
+	 * @return {@link Literal.Kind#INTEGER}.
+	 */
+	@Override
+	public Kind getKind() {
+		return Kind.INTEGER;
+	}
+
 	/**
 	 * Retrieves the integer value of the literal.
 	 *
@@ -31,6 +70,17 @@ public class LiteralInteger extends Literal {
 		return _value;
 	}
 
+	/**
+	 * Retrieves the integer value of the literal, which is always there.
+	 *
+	 * @param defaultValue Ignored, as the literal is an integer.
+	 * @return The integer value of the literal.
+	 */
+	@Override
+	public int intValueOr(int defaultValue) {
+		return _value;
+	}
+
 	/**
 	 * Retrieves the string representation of the integer value.
 	 *
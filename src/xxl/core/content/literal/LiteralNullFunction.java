@@ -1,6 +1,51 @@
 package xxl.core.content.literal;
 
+import java.io.Serial;
+
+/**
+ * The {@code LiteralNullFunction} class represents the value of a failed function. It holds nothing, so there is a single instance of it,
+ * which deserialization preserves.
+ */
 public class LiteralNullFunction extends LiteralNull {
+
+	/** The single instance of the class. */
+	private static final LiteralNullFunction INSTANCE = new LiteralNullFunction();
+
+	/**
+	 * Constructs the single instance of the class.
+	 */
+	private LiteralNullFunction() {
+		// Only the single instance is ever built
+	}
+
+	/**
+	 * Gets the single instance of the {@code LiteralNullFunction} class.
+	 *
+	 * @return The value of a failed function.
+	 */
+	public static LiteralNullFunction getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Replaces a deserialized instance with the single one.
+	 *
+	 * @return The single instance of the class.
+	 */
+	@Serial
+	private Object readResolve() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Retrieves the kind of the literal, which is always the value of a failed function.
+	 *
+	 * @return {@link Literal.Kind#ERROR}.
+	 */
+	@Override
+	public Kind getKind() {
+		return Kind.ERROR;
+	}
 	
     /**
 	 * Returns a String (empty) representation of a null literal function.
@@ -1,6 +1,51 @@
 package xxl.core.content.literal;
 
+import java.io.Serial;
+
+/**
+ * The {@code LiteralNullValue} class represents the empty value. It holds nothing, so there is a single instance of it,
+ * which deserialization preserves.
+ */
 public class LiteralNullValue extends LiteralNull {
+
+	/** The single instance of the class. */
+	private static final LiteralNullValue INSTANCE = new LiteralNullValue();
+
+	/**
+	 * Constructs the single instance of the class.
+	 */
+	private LiteralNullValue() {
+		// Only the single instance is ever built
+	}
+
+	/**
+	 * Gets the single instance of the {@code LiteralNullValue} class.
+	 *
+	 * @return The empty value.
+	 */
+	public static LiteralNullValue getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Replaces a deserialized instance with the single one.
+	 *
+	 * @return The single instance of the class.
+	 */
+	@Serial
+	private Object readResolve() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Retrieves the kind of the literal, which is always the value of an empty position.
+	 *
+	 * @return {@link Literal.Kind#EMPTY}.
+	 */
+	@Override
+	public Kind getKind() {
+		return Kind.EMPTY;
+	}
 	
     /**
 	 * Returns a String (empty) representation of a null literal value.
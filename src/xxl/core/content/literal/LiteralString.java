@@ -10,7 +10,7 @@ import xxl.core.exception.InvalidValueTypeException;
 public class LiteralString extends Literal {
 	
 	/** The string value stored in the literal. */
-	private String _value;
+	private final String _value;
 
 	/**
 	 * Constructs a new {@code LiteralString} with the specified string value.
@@ -32,6 +32,16 @@ public class LiteralString extends Literal {
 		throw new InvalidValueTypeException();
 	}
 
+	/**
+	 * Retrieves the kind of the literal, which is always a string.
+	 *
+	 * @return {@link Literal.Kind#STRING}.
+	 */
+	@Override
+	public Kind getKind() {
+		return Kind.STRING;
+	}
+
 	/**
 	 * Retrieves the string value of the literal.
 	 *
@@ -42,6 +52,17 @@ public class LiteralString extends Literal {
 		return _value;
 	}
 
+	/**
+	 * Retrieves the string value of the literal, which is always there.
+	 *
+	 * @param defaultValue Ignored, as the literal is a string.
+	 * @return The string value of the literal.
+	 */
+	@Override
+	public String stringValueOr(String defaultValue) {
+		return _value;
+	}
+
 	/**
 	 * Returns a string representation of the {@code LiteralString}.
 	 *
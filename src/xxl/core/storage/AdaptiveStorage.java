@@ -0,0 +1,646 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import xxl.core.Position;
+
+/**
+ * A class that implements the {@link Storage} interface by splitting the grid into square regions of
+ * {@value #REGION_SIZE} by {@value #REGION_SIZE} positions, each one laid out according to how full it is.
+ * A region starts as a small open-addressing hash table and becomes a flat array once more than
+ * {@value #DENSE_THRESHOLD} of its positions are used. It only goes back to a hash table when it drops
+ * below {@value #SPARSE_THRESHOLD}, so a region hovering around a threshold doesn't keep migrating.
+ * Regions left empty are released. Storing null at a position removes its element.
+ *
+ * @param <T> The type of elements to be stored.
+ *
+ * @Serial 202610171430L
+ */
+public class AdaptiveStorage<T> implements Storage<T>, Serializable {
+
+	/** The number of rows and of columns of each region. */
+	private static final int REGION_SIZE = 64;
+
+	/** The number of positions of each region. */
+	private static final int REGION_AREA = REGION_SIZE * REGION_SIZE;
+
+	/** The number of elements above which a sparse region becomes dense. */
+	private static final int DENSE_THRESHOLD = REGION_AREA / 4;
+
+	/** The number of elements below which a dense region becomes sparse again. */
+	private static final int SPARSE_THRESHOLD = REGION_AREA / 16;
+
+	/** The capacity of a new sparse region. Must be a power of two. */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/** The assumed size in bytes of a reference, as with compressed object pointers. */
+	private static final int REFERENCE_BYTES = 4;
+
+	/** The assumed size in bytes of an object or array header. */
+	private static final int HEADER_BYTES = 16;
+
+	/** The regions of the grid, indexed by region row and then by region column. Missing regions are null. */
+	private final Region[][] _regions;
+
+	/** The number of rows of the grid. */
+	private final int _rows;
+
+	/** The number of columns of the grid. */
+	private final int _columns;
+
+	/** The number of elements in the storage. */
+	private int _size;
+
+	/** The number of times a region changed its layout. */
+	private long _migrations;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171430L;
+
+	/**
+	 * A block of {@value #REGION_SIZE} by {@value #REGION_SIZE} positions, in either layout.
+	 * Positions are addressed by their row-major offset inside the region.
+	 */
+	private static class Region implements Serializable {
+
+		/** The elements of the region in row-major order, or null while the region is sparse. */
+		private Object[] _dense;
+
+		/** The offset plus one of the element of each slot of the sparse table. Zero marks an empty slot. */
+		private int[] _keys = new int[INITIAL_CAPACITY];
+
+		/** The element of each slot of the sparse table. */
+		private Object[] _values = new Object[INITIAL_CAPACITY];
+
+		/** The number of elements in the region. */
+		private int _count;
+
+		/** The serial version UID for ensuring version compatibility during serialization. */
+		@Serial
+		private static final long serialVersionUID = 202610171431L;
+
+		/**
+		 * Retrieves the element at an offset of the region.
+		 *
+		 * @param offset The offset of the element.
+		 * @return The element, or null if there is none.
+		 */
+		private Object get(int offset) {
+			if (_dense != null) {
+				return _dense[offset];
+			}
+			return _values[findSlot(offset + 1)];
+		}
+
+		/**
+		 * Stores an element at an offset of the region, replacing whatever was there.
+		 *
+		 * @param offset  The offset where to store the element.
+		 * @param element The element to store, or null to remove the one there.
+		 * @return The change in the number of elements of the region: 1, 0 or -1.
+		 */
+		private int set(int offset, Object element) {
+			if (_dense != null) {
+				int change = (element != null ? 1 : 0) - (_dense[offset] != null ? 1 : 0);
+				_dense[offset] = element;
+				_count += change;
+				return change;
+			}
+			int slot = findSlot(offset + 1);
+			if (_keys[slot] == 0) {
+				if (element == null) {
+					return 0;
+				}
+				_keys[slot] = offset + 1;
+				_values[slot] = element;
+				_count++;
+				// Keeps the table at most half full, so probe sequences stay short
+				if (_count * 2 > _keys.length) {
+					rehash(_keys.length * 2);
+				}
+				return 1;
+			}
+			if (element != null) {
+				_values[slot] = element;
+				return 0;
+			}
+			removeSlot(slot);
+			_count--;
+			// Gives memory back once the table is mostly empty
+			if (_count * 8 < _keys.length && _keys.length > INITIAL_CAPACITY) {
+				rehash(_keys.length / 2);
+			}
+			return -1;
+		}
+
+		/**
+		 * Moves the elements of a sparse region into a flat array.
+		 */
+		private void toDense() {
+			_dense = new Object[REGION_AREA];
+			for (int slot = 0; slot < _keys.length; slot++) {
+				if (_keys[slot] != 0) {
+					_dense[_keys[slot] - 1] = _values[slot];
+				}
+			}
+			_keys = null;
+			_values = null;
+		}
+
+		/**
+		 * Moves the elements of a dense region into a hash table.
+		 */
+		private void toSparse() {
+			Object[] dense = _dense;
+			_dense = null;
+			_keys = null;
+			rehash(Integer.highestOneBit(Math.max(INITIAL_CAPACITY / 2, _count)) * 4);
+			for (int offset = 0; offset < REGION_AREA; offset++) {
+				if (dense[offset] != null) {
+					int slot = findSlot(offset + 1);
+					_keys[slot] = offset + 1;
+					_values[slot] = dense[offset];
+				}
+			}
+		}
+
+		/**
+		 * Estimates the memory taken by the region, in bytes.
+		 *
+		 * @return The estimated size of the region.
+		 */
+		private long estimatedBytes() {
+			if (_dense != null) {
+				return HEADER_BYTES * 2 + (long) REGION_AREA * REFERENCE_BYTES;
+			}
+			return HEADER_BYTES * 3 + (long) _keys.length * (Integer.BYTES + REFERENCE_BYTES);
+		}
+
+		/**
+		 * Finds the slot holding the given key, or the empty slot where it would be inserted.
+		 *
+		 * @param key The key to look for, the offset plus one.
+		 * @return The index of the slot.
+		 */
+		private int findSlot(int key) {
+			int mask = _keys.length - 1;
+			int slot = hash(key) & mask;
+			while (_keys[slot] != 0 && _keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		/**
+		 * Empties a slot of the sparse table, shifting back the elements of its probe sequence
+		 * so that every element stays reachable without tombstones.
+		 *
+		 * @param slot The slot to empty.
+		 */
+		private void removeSlot(int slot) {
+			int mask = _keys.length - 1;
+			int hole = slot;
+			int next = (hole + 1) & mask;
+			while (_keys[next] != 0) {
+				int home = hash(_keys[next]) & mask;
+				// Moves the element back only if the hole lies between its home slot and its slot
+				if (((next - home) & mask) >= ((next - hole) & mask)) {
+					_keys[hole] = _keys[next];
+					_values[hole] = _values[next];
+					hole = next;
+				}
+				next = (next + 1) & mask;
+			}
+			_keys[hole] = 0;
+			_values[hole] = null;
+		}
+
+		/**
+		 * Moves every element of the sparse table to a table with the given capacity.
+		 *
+		 * @param capacity The new capacity. Must be a power of two.
+		 */
+		private void rehash(int capacity) {
+			int[] oldKeys = _keys;
+			Object[] oldValues = _values;
+			_keys = new int[capacity];
+			_values = new Object[capacity];
+			if (oldKeys == null) {
+				return;
+			}
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					int slot = findSlot(oldKeys[i]);
+					_keys[slot] = oldKeys[i];
+					_values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		/**
+		 * Spreads the bits of a key, so that neighbouring offsets land on distant slots.
+		 *
+		 * @param key The key to hash.
+		 * @return The hash of the key.
+		 */
+		private static int hash(int key) {
+			return key * 0x9E3779B9 >>> 16;
+		}
+
+	}
+
+	/**
+	 * A snapshot of the layout of an {@link AdaptiveStorage} and of the memory it takes.
+	 */
+	public static class Stats {
+
+		/** The number of regions in the sparse layout. */
+		private final int _sparseRegions;
+
+		/** The number of regions in the dense layout. */
+		private final int _denseRegions;
+
+		/** The number of elements stored. */
+		private final int _size;
+
+		/** The estimated memory taken by the regions, in bytes. */
+		private final long _estimatedBytes;
+
+		/** The number of times a region changed its layout. */
+		private final long _migrations;
+
+		/**
+		 * Initializes a new snapshot with the given figures.
+		 *
+		 * @param sparseRegions  The number of regions in the sparse layout.
+		 * @param denseRegions   The number of regions in the dense layout.
+		 * @param size           The number of elements stored.
+		 * @param estimatedBytes The estimated memory taken by the regions, in bytes.
+		 * @param migrations     The number of times a region changed its layout.
+		 */
+		private Stats(int sparseRegions, int denseRegions, int size, long estimatedBytes, long migrations) {
+			_sparseRegions = sparseRegions;
+			_denseRegions = denseRegions;
+			_size = size;
+			_estimatedBytes = estimatedBytes;
+			_migrations = migrations;
+		}
+
+		/**
+		 * Gets the number of regions in the sparse layout.
+		 *
+		 * @return The number of sparse regions.
+		 */
+		public int getSparseRegions() {
+			return _sparseRegions;
+		}
+
+		/**
+		 * Gets the number of regions in the dense layout.
+		 *
+		 * @return The number of dense regions.
+		 */
+		public int getDenseRegions() {
+			return _denseRegions;
+		}
+
+		/**
+		 * Gets the number of elements stored.
+		 *
+		 * @return The number of elements.
+		 */
+		public int getSize() {
+			return _size;
+		}
+
+		/**
+		 * Gets the estimated memory taken by the regions. The estimate assumes compressed object pointers
+		 * and leaves out the stored elements themselves.
+		 *
+		 * @return The estimated size, in bytes.
+		 */
+		public long getEstimatedBytes() {
+			return _estimatedBytes;
+		}
+
+		/**
+		 * Gets the number of times a region changed its layout.
+		 *
+		 * @return The number of migrations.
+		 */
+		public long getMigrations() {
+			return _migrations;
+		}
+
+		/**
+		 * Returns a string representation of the snapshot.
+		 *
+		 * @return A string with every figure of the snapshot.
+		 */
+		@Override
+		public String toString() {
+			return "sparse=" + _sparseRegions + " dense=" + _denseRegions + " size=" + _size
+					+ " bytes=" + _estimatedBytes + " migrations=" + _migrations;
+		}
+
+	}
+
+	/**
+	 * Initializes a new instance of the {@code AdaptiveStorage} class for a grid of the given size.
+	 *
+	 * @param rows    The number of rows of the grid.
+	 * @param columns The number of columns of the grid.
+	 */
+	public AdaptiveStorage(int rows, int columns) {
+		_rows = rows;
+		_columns = columns;
+		_regions = new Region[regionsFor(rows)][];
+	}
+
+	/**
+	 * Sets the element at the specified position in the storage, migrating its region to the layout
+	 * that fits its new fill.
+	 *
+	 * @param position The position at which to store the element.
+	 * @param element  The element to store, or null to remove the one there.
+	 * @throws IndexOutOfBoundsException if the position is outside of the grid.
+	 */
+	@Override
+	public void set(Position position, T element) {
+		int row = position.getRow();
+		int column = position.getColumn();
+		if (!contains(row, column)) {
+			throw new IndexOutOfBoundsException(position.toString());
+		}
+		Region region = region(row, column);
+		if (region == null) {
+			if (element == null) {
+				return;
+			}
+			region = allocateRegion(row, column);
+		}
+		_size += region.set(offset(row, column), element);
+		if (region._count == 0) {
+			_regions[(row - 1) / REGION_SIZE][(column - 1) / REGION_SIZE] = null;
+		}
+		else if (region._dense == null && region._count > DENSE_THRESHOLD) {
+			region.toDense();
+			_migrations++;
+		}
+		else if (region._dense != null && region._count < SPARSE_THRESHOLD) {
+			region.toSparse();
+			_migrations++;
+		}
+	}
+
+	/**
+	 * Retrieves the element at the specified position from the storage.
+	 *
+	 * @param position The position of the element to retrieve.
+	 * @return The element at the specified position, or null if it does not exist.
+	 */
+	@Override
+	public T get(Position position) {
+		return get(position.getRow(), position.getColumn());
+	}
+
+	/**
+	 * Retrieves the element at the specified coordinates from the storage.
+	 *
+	 * @param row    The row of the element to retrieve.
+	 * @param column The column of the element to retrieve.
+	 * @return The element at the specified coordinates, or null if it does not exist.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int row, int column) {
+		if (!contains(row, column)) {
+			return null;
+		}
+		Region region = region(row, column);
+		return region == null ? null : (T) region.get(offset(row, column));
+	}
+
+	/**
+	 * Gets an iterator for iterating over elements in the storage, in row-major order.
+	 * Each row of the grid is walked one region at a time, skipping the regions that hold nothing.
+	 *
+	 * @return An iterator for the elements in the storage.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+
+			/** The row being walked. */
+			private int _row = 1;
+
+			/** The column of the next candidate element. */
+			private int _column = 1;
+
+			/** The next element, or null if the walk is over. */
+			private T _next = advance();
+
+			@Override
+			public boolean hasNext() {
+				return _next != null;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				T element = _next;
+				_next = advance();
+				return element;
+			}
+
+			/**
+			 * Moves the walk to the next element.
+			 *
+			 * @return The next element, or null if there is none.
+			 */
+			@SuppressWarnings("unchecked")
+			private T advance() {
+				while (_row <= _rows) {
+					Region[] regionRow = _regions[(_row - 1) / REGION_SIZE];
+					while (regionRow != null && _column <= _columns) {
+						Region region = regionRow[(_column - 1) / REGION_SIZE];
+						if (region == null) {
+							// Jumps over the whole region
+							_column = ((_column - 1) / REGION_SIZE + 1) * REGION_SIZE + 1;
+							continue;
+						}
+						Object element = region.get(offset(_row, _column));
+						_column++;
+						if (element != null) {
+							return (T) element;
+						}
+					}
+					_row = regionRow == null ? ((_row - 1) / REGION_SIZE + 1) * REGION_SIZE + 1 : _row + 1;
+					_column = 1;
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Visits every position of a slice of a row, in order, one region at a time. Each region is looked up
+	 * once: a dense one is then walked as a contiguous array, a sparse one is probed, and a missing one
+	 * hands over nulls without being looked at again. The layout is checked at every position, as the
+	 * action may write to the region and make it migrate.
+	 *
+	 * @param row        The row of the slice.
+	 * @param fromColumn The first column of the slice.
+	 * @param toColumn   The last column of the slice.
+	 * @param action     The action to perform over each position.
+	 * @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean forEachInRow(int row, int fromColumn, int toColumn, RangeAction<T> action) {
+		int column = fromColumn;
+		while (column <= toColumn) {
+			// The last column of the slice that shares the region of the current one
+			int regionEnd = Math.min(toColumn, column < 1 ? 0 : ((column - 1) / REGION_SIZE + 1) * REGION_SIZE);
+			Region region = contains(row, column) ? region(row, column) : null;
+			int offset = offset(row, column);
+			for (; column <= regionEnd; column++, offset++) {
+				T element = region != null && column <= _columns ? (T) region.get(offset) : null;
+				if (!action.accept(row, column, element)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Visits every position of a slice of a column, in order, one region at a time. Each region is looked
+	 * up once: a dense one is then walked with a fixed stride, a sparse one is probed, and a missing one
+	 * hands over nulls without being looked at again. The layout is checked at every position, as the
+	 * action may write to the region and make it migrate.
+	 *
+	 * @param column  The column of the slice.
+	 * @param fromRow The first row of the slice.
+	 * @param toRow   The last row of the slice.
+	 * @param action  The action to perform over each position.
+	 * @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean forEachInColumn(int column, int fromRow, int toRow, RangeAction<T> action) {
+		int row = fromRow;
+		while (row <= toRow) {
+			// The last row of the slice that shares the region of the current one
+			int regionEnd = Math.min(toRow, row < 1 ? 0 : ((row - 1) / REGION_SIZE + 1) * REGION_SIZE);
+			Region region = contains(row, column) ? region(row, column) : null;
+			int offset = offset(row, column);
+			for (; row <= regionEnd; row++, offset += REGION_SIZE) {
+				T element = region != null && row <= _rows ? (T) region.get(offset) : null;
+				if (!action.accept(row, column, element)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Takes a snapshot of the current layout of the storage and of the memory it takes.
+	 *
+	 * @return The statistics of the storage.
+	 */
+	public Stats stats() {
+		int sparse = 0;
+		int dense = 0;
+		long bytes = HEADER_BYTES + (long) _regions.length * REFERENCE_BYTES;
+		for (Region[] regionRow: _regions) {
+			if (regionRow == null) {
+				continue;
+			}
+			bytes += HEADER_BYTES + (long) regionRow.length * REFERENCE_BYTES;
+			for (Region region: regionRow) {
+				if (region == null) {
+					continue;
+				}
+				if (region._dense != null) {
+					dense++;
+				}
+				else {
+					sparse++;
+				}
+				bytes += region.estimatedBytes();
+			}
+		}
+		return new Stats(sparse, dense, _size, bytes, _migrations);
+	}
+
+	/**
+	 * Computes how many regions are needed to cover the given length.
+	 *
+	 * @param length The number of rows or columns to cover.
+	 * @return The number of regions needed.
+	 */
+	private static int regionsFor(int length) {
+		return (length + REGION_SIZE - 1) / REGION_SIZE;
+	}
+
+	/**
+	 * Computes the offset of some coordinates inside their region.
+	 *
+	 * @param row    The row to convert.
+	 * @param column The column to convert.
+	 * @return The row-major offset of the coordinates in their region.
+	 */
+	private static int offset(int row, int column) {
+		return ((row - 1) % REGION_SIZE) * REGION_SIZE + (column - 1) % REGION_SIZE;
+	}
+
+	/**
+	 * Checks if the given coordinates fall inside the grid.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if the coordinates are inside the grid, {@code false} otherwise.
+	 */
+	private boolean contains(int row, int column) {
+		return row >= 1 && row <= _rows && column >= 1 && column <= _columns;
+	}
+
+	/**
+	 * Retrieves the region holding the specified coordinates.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The region, or null if it holds nothing.
+	 */
+	private Region region(int row, int column) {
+		Region[] regionRow = _regions[(row - 1) / REGION_SIZE];
+		return regionRow == null ? null : regionRow[(column - 1) / REGION_SIZE];
+	}
+
+	/**
+	 * Allocates the region holding the specified coordinates, in the sparse layout.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The new region.
+	 */
+	private Region allocateRegion(int row, int column) {
+		int regionRowIndex = (row - 1) / REGION_SIZE;
+		if (_regions[regionRowIndex] == null) {
+			_regions[regionRowIndex] = new Region[regionsFor(_columns)];
+		}
+		Region region = new Region();
+		_regions[regionRowIndex][(column - 1) / REGION_SIZE] = region;
+		return region;
+	}
+
+}
@@ -0,0 +1,345 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A class that implements the {@link LiteralStorage} interface by organizing the values by columns.
+ * Each column is split in chunks of {@value #CHUNK_ROWS} rows, allocated only when one of their rows
+ * is first written to. Integers are kept in primitive {@code int} vectors with a bitmap telling
+ * which rows hold one, and strings are dictionary-encoded, so repeated strings are stored once.
+ * A chunk only allocates the vector of a type once it holds a value of that type, and lets it go once
+ * it holds none; emptied chunks are let go as well, and so are the strings no position holds anymore.
+ *
+ * @Serial 202610171910L
+ */
+public class ColumnarLiteralStorage implements LiteralStorage, Serializable {
+
+	/** The number of rows of each chunk. */
+	private static final int CHUNK_ROWS = 1024;
+
+	/** The chunks of every column, indexed by column and then by chunk. Missing chunks are null. */
+	private final Chunk[][] _columns;
+
+	/** The number of rows of the stored grid. */
+	private final int _rows;
+
+	/** The distinct strings stored, by their code. */
+	private final StringDictionary _dictionary;
+
+	/** The number of positions holding a value. */
+	private int _size;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171910L;
+
+	/**
+	 * A block of {@value #CHUNK_ROWS} consecutive rows of a single column.
+	 */
+	private static class Chunk implements Serializable {
+
+		/**
+		 * The integer value of each row, or null while no row holds one. Only meaningful where the matching
+		 * bit of {@link #_hasInt} is set.
+		 */
+		private int[] _ints;
+
+		/** A bitmap of the rows holding an integer, or null while no row holds one. */
+		private long[] _hasInt;
+
+		/** The dictionary code of the string of each row, plus one, or null while no row holds a string. Zero means the row holds no string. */
+		private int[] _strings;
+
+		/** The number of rows holding an integer. */
+		private int _intCount;
+
+		/** The number of rows holding a string. */
+		private int _stringCount;
+
+		/** The serial version UID for ensuring version compatibility during serialization. */
+		@Serial
+		private static final long serialVersionUID = 202610171911L;
+
+		/**
+		 * Checks if a row of the chunk holds an integer.
+		 *
+		 * @param offset The row inside the chunk.
+		 * @return {@code true} if the row holds an integer, {@code false} otherwise.
+		 */
+		private boolean hasInt(int offset) {
+			return _hasInt != null && (_hasInt[offset >>> 6] & (1L << offset)) != 0;
+		}
+
+		/**
+		 * Checks if the chunk holds nothing.
+		 *
+		 * @return {@code true} if no row holds a value, {@code false} otherwise.
+		 */
+		private boolean isEmpty() {
+			return _intCount == 0 && _stringCount == 0;
+		}
+
+		/**
+		 * Retrieves the string code of a row of the chunk.
+		 *
+		 * @param offset The row inside the chunk.
+		 * @return The string code plus one, or zero if the row holds no string.
+		 */
+		private int stringCode(int offset) {
+			return _strings == null ? 0 : _strings[offset];
+		}
+
+	}
+
+	/**
+	 * Initializes a new instance of the {@code ColumnarLiteralStorage} class for a grid of the given size.
+	 *
+	 * @param rows    The number of rows of the grid.
+	 * @param columns The number of columns of the grid.
+	 */
+	public ColumnarLiteralStorage(int rows, int columns) {
+		_rows = rows;
+		_columns = new Chunk[columns][];
+		_dictionary = new StringDictionary();
+	}
+
+	/**
+	 * Stores an integer at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 */
+	@Override
+	public void setInt(int row, int column, int value) {
+		clear(row, column);
+		Chunk chunk = chunkForWriting(row, column);
+		if (chunk._ints == null) {
+			chunk._ints = new int[CHUNK_ROWS];
+			chunk._hasInt = new long[CHUNK_ROWS / Long.SIZE];
+		}
+		int offset = (row - 1) % CHUNK_ROWS;
+		chunk._ints[offset] = value;
+		chunk._hasInt[offset >>> 6] |= 1L << offset;
+		chunk._intCount++;
+		_size++;
+	}
+
+	/**
+	 * Stores a string at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 */
+	@Override
+	public void setString(int row, int column, String value) {
+		clear(row, column);
+		Chunk chunk = chunkForWriting(row, column);
+		if (chunk._strings == null) {
+			chunk._strings = new int[CHUNK_ROWS];
+		}
+		chunk._strings[(row - 1) % CHUNK_ROWS] = _dictionary.acquire(value) + 1;
+		chunk._stringCount++;
+		_size++;
+	}
+
+	/**
+	 * Removes the value at the specified coordinates, if there is one. A vector left without values is let
+	 * go, and so is a chunk left empty, along with its column if it was the last one.
+	 *
+	 * @param row    The row of the value to remove.
+	 * @param column The column of the value to remove.
+	 */
+	@Override
+	public void clear(int row, int column) {
+		Chunk chunk = chunk(row, column);
+		if (chunk == null) {
+			return;
+		}
+		int offset = (row - 1) % CHUNK_ROWS;
+		if (chunk.hasInt(offset)) {
+			chunk._hasInt[offset >>> 6] &= ~(1L << offset);
+			if (--chunk._intCount == 0) {
+				chunk._ints = null;
+				chunk._hasInt = null;
+			}
+		}
+		else if (chunk.stringCode(offset) != 0) {
+			_dictionary.release(chunk._strings[offset] - 1);
+			chunk._strings[offset] = 0;
+			if (--chunk._stringCount == 0) {
+				chunk._strings = null;
+			}
+		}
+		else {
+			return;
+		}
+		_size--;
+		if (chunk.isEmpty()) {
+			releaseChunk(row, column);
+		}
+	}
+
+	/**
+	 * Checks if an integer is stored at the specified coordinates.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if an integer is stored there, {@code false} otherwise.
+	 */
+	@Override
+	public boolean hasInt(int row, int column) {
+		Chunk chunk = chunk(row, column);
+		return chunk != null && chunk.hasInt((row - 1) % CHUNK_ROWS);
+	}
+
+	/**
+	 * Retrieves the integer stored at the specified coordinates.
+	 * Only meaningful when {@link #hasInt(int, int)} holds.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The integer stored there.
+	 */
+	@Override
+	public int getInt(int row, int column) {
+		return chunk(row, column)._ints[(row - 1) % CHUNK_ROWS];
+	}
+
+	/**
+	 * Retrieves the string stored at the specified coordinates.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The string stored there, or null if there is none.
+	 */
+	@Override
+	public String getString(int row, int column) {
+		Chunk chunk = chunk(row, column);
+		int code = chunk == null ? 0 : chunk.stringCode((row - 1) % CHUNK_ROWS);
+		return code == 0 ? null : _dictionary.get(code - 1);
+	}
+
+	/**
+	 * Retrieves the number of distinct strings stored.
+	 *
+	 * @return The number of strings in the dictionary.
+	 */
+	public int getDistinctStringCount() {
+		return _dictionary.size();
+	}
+
+	/**
+	 * Retrieves the number of chunks allocated, which is what the memory taken by the storage grows with.
+	 *
+	 * @return The number of chunks.
+	 */
+	public int getChunkCount() {
+		int count = 0;
+		for (Chunk[] chunks: _columns) {
+			if (chunks == null) {
+				continue;
+			}
+			for (Chunk chunk: chunks) {
+				if (chunk != null) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Retrieves the number of positions holding a value.
+	 *
+	 * @return The number of values stored.
+	 */
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Calls the given action for the coordinates of every stored value, column by column.
+	 *
+	 * @param action The action receiving the row and the column of each value.
+	 */
+	@Override
+	public void forEachPosition(PositionAction action) {
+		for (int column = 1; column <= _columns.length; column++) {
+			Chunk[] chunks = _columns[column - 1];
+			if (chunks == null) {
+				continue;
+			}
+			for (int index = 0; index < chunks.length; index++) {
+				Chunk chunk = chunks[index];
+				if (chunk == null) {
+					continue;
+				}
+				for (int offset = 0; offset < CHUNK_ROWS; offset++) {
+					if (chunk.hasInt(offset) || chunk.stringCode(offset) != 0) {
+						action.accept(index * CHUNK_ROWS + offset + 1, column);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the chunk holding the specified coordinates.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The chunk, or null if it was never allocated or the coordinates are outside of the grid.
+	 */
+	private Chunk chunk(int row, int column) {
+		if (row < 1 || row > _rows || column < 1 || column > _columns.length) {
+			return null;
+		}
+		Chunk[] chunks = _columns[column - 1];
+		return chunks == null ? null : chunks[(row - 1) / CHUNK_ROWS];
+	}
+
+	/**
+	 * Retrieves the chunk holding the specified coordinates, allocating it if needed.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The chunk.
+	 * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+	 */
+	private Chunk chunkForWriting(int row, int column) {
+		if (row < 1 || row > _rows || column < 1 || column > _columns.length) {
+			throw new IndexOutOfBoundsException(row + ";" + column);
+		}
+		if (_columns[column - 1] == null) {
+			_columns[column - 1] = new Chunk[(_rows + CHUNK_ROWS - 1) / CHUNK_ROWS];
+		}
+		Chunk[] chunks = _columns[column - 1];
+		int index = (row - 1) / CHUNK_ROWS;
+		if (chunks[index] == null) {
+			chunks[index] = new Chunk();
+		}
+		return chunks[index];
+	}
+
+	/**
+	 * Lets go of the empty chunk holding the specified coordinates, and of its column if no chunk is left in it.
+	 *
+	 * @param row    The row inside the chunk.
+	 * @param column The column of the chunk.
+	 */
+	private void releaseChunk(int row, int column) {
+		Chunk[] chunks = _columns[column - 1];
+		chunks[(row - 1) / CHUNK_ROWS] = null;
+		for (Chunk chunk: chunks) {
+			if (chunk != null) {
+				return;
+			}
+		}
+		_columns[column - 1] = null;
+	}
+
+}
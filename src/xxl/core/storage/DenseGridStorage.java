@@ -0,0 +1,199 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import xxl.core.Position;
+
+/**
+ * A class that implements the {@link Storage} interface using a flat array sized to a fixed grid.
+ * The element at row {@code r} and column {@code c} lives at index {@code (r - 1) * columns + (c - 1)},
+ * so every access is a single array lookup, with no comparisons involved.
+ *
+ * @param <T> The type of elements to be stored.
+ * 
+ * @Serial 202610171005L
+ */
+public class DenseGridStorage<T> implements Storage<T>, Serializable {
+
+	/** The storage variable - in this case, a row-major array. */
+	private Object[] _stored;
+
+	/** The number of rows of the grid. */
+	private final int _rows;
+
+	/** The number of columns of the grid. */
+	private final int _columns;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171005L;
+
+	/**
+	 * Initializes a new instance of the {@code DenseGridStorage} class for a grid of the given size.
+	 *
+	 * @param rows    The number of rows of the grid.
+	 * @param columns The number of columns of the grid.
+	 */
+	public DenseGridStorage(int rows, int columns) {
+		_rows = rows;
+		_columns = columns;
+		_stored = new Object[Math.multiplyExact(rows, columns)];
+	}
+
+	/**
+	 * Sets the element at the specified position in the storage.
+	 *
+	 * @param position The position at which to store the element.
+	 * @param element  The element to store.
+	 * @throws IndexOutOfBoundsException if the position is outside of the grid.
+	 */
+	@Override
+	public void set(Position position, T element) {
+		if (!contains(position.getRow(), position.getColumn())) {
+			throw new IndexOutOfBoundsException(position.toString());
+		}
+		_stored[indexOf(position.getRow(), position.getColumn())] = element;
+	}
+
+	/**
+	 * Retrieves the element at the specified position from the storage.
+	 *
+	 * @param position The position of the element to retrieve.
+	 * @return The element at the specified position, or null if it does not exist.
+	 */
+	@Override
+	public T get(Position position) {
+		return get(position.getRow(), position.getColumn());
+	}
+
+	/**
+	 * Retrieves the element at the specified coordinates from the storage.
+	 *
+	 * @param row    The row of the element to retrieve.
+	 * @param column The column of the element to retrieve.
+	 * @return The element at the specified coordinates, or null if it does not exist.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int row, int column) {
+		if (!contains(row, column)) {
+			return null;
+		}
+		return (T) _stored[indexOf(row, column)];
+	}
+
+	/**
+	 * Gets an iterator for iterating over elements in the storage, in row-major order.
+	 * Empty slots of the grid are skipped.
+	 *
+	 * @return An iterator for the elements in the storage.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+
+			/** The index of the next non-empty slot, or the array length if there is none. */
+			private int _next = advance(0);
+
+			@Override
+			public boolean hasNext() {
+				return _next < _stored.length;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				T element = (T) _stored[_next];
+				_next = advance(_next + 1);
+				return element;
+			}
+
+		};
+	}
+
+	/**
+	 * Visits every position of a slice of a row, in order, walking the backing array one slot at a time.
+	 *
+	 * @param row        The row of the slice.
+	 * @param fromColumn The first column of the slice.
+	 * @param toColumn   The last column of the slice.
+	 * @param action     The action to perform over each position.
+	 * @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean forEachInRow(int row, int fromColumn, int toColumn, RangeAction<T> action) {
+		int index = indexOf(row, fromColumn);
+		for (int column = fromColumn; column <= toColumn; column++, index++) {
+			T element = contains(row, column) ? (T) _stored[index] : null;
+			if (!action.accept(row, column, element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Visits every position of a slice of a column, in order, striding through the backing array.
+	 *
+	 * @param column  The column of the slice.
+	 * @param fromRow The first row of the slice.
+	 * @param toRow   The last row of the slice.
+	 * @param action  The action to perform over each position.
+	 * @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean forEachInColumn(int column, int fromRow, int toRow, RangeAction<T> action) {
+		int index = indexOf(fromRow, column);
+		for (int row = fromRow; row <= toRow; row++, index += _columns) {
+			T element = contains(row, column) ? (T) _stored[index] : null;
+			if (!action.accept(row, column, element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the given coordinates fall inside the grid.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if the coordinates are inside the grid, {@code false} otherwise.
+	 */
+	private boolean contains(int row, int column) {
+		return row >= 1 && row <= _rows && column >= 1 && column <= _columns;
+	}
+
+	/**
+	 * Computes the array index of some coordinates inside the grid.
+	 *
+	 * @param row    The row to convert.
+	 * @param column The column to convert.
+	 * @return The index of the coordinates in the backing array.
+	 */
+	private int indexOf(int row, int column) {
+		return (row - 1) * _columns + (column - 1);
+	}
+
+	/**
+	 * Finds the first non-empty slot starting at the given index.
+	 *
+	 * @param from The index where the search starts.
+	 * @return The index of the first non-empty slot, or the array length if there is none.
+	 */
+	private int advance(int from) {
+		while (from < _stored.length && _stored[from] == null) {
+			from++;
+		}
+		return from;
+	}
+
+}
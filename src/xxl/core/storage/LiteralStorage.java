@@ -0,0 +1,93 @@
+package xxl.core.storage;
+
+/**
+ * An interface for storages of plain literal values (integers and strings) addressed by coordinates.
+ * Values are handed in and out as primitives and strings, so no literal object is needed to keep them.
+ */
+public interface LiteralStorage {
+
+	/**
+	 * Stores an integer at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 */
+	public void setInt(int row, int column, int value);
+
+	/**
+	 * Stores a string at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 */
+	public void setString(int row, int column, String value);
+
+	/**
+	 * Removes the value at the specified coordinates, if there is one.
+	 *
+	 * @param row    The row of the value to remove.
+	 * @param column The column of the value to remove.
+	 */
+	public void clear(int row, int column);
+
+	/**
+	 * Checks if an integer is stored at the specified coordinates.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if an integer is stored there, {@code false} otherwise.
+	 */
+	public boolean hasInt(int row, int column);
+
+	/**
+	 * Retrieves the integer stored at the specified coordinates.
+	 * Only meaningful when {@link #hasInt(int, int)} holds.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The integer stored there.
+	 */
+	public int getInt(int row, int column);
+
+	/**
+	 * Retrieves the string stored at the specified coordinates.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The string stored there, or null if there is none.
+	 */
+	public String getString(int row, int column);
+
+	/**
+	 * Retrieves the number of positions holding a value.
+	 *
+	 * @return The number of values stored.
+	 */
+	public int size();
+
+	/**
+	 * Calls the given action for the coordinates of every stored value.
+	 *
+	 * @param action The action receiving the row and the column of each value.
+	 */
+	public void forEachPosition(PositionAction action);
+
+	/**
+	 * An action over the coordinates of a stored value.
+	 */
+	@FunctionalInterface
+	public interface PositionAction {
+
+		/**
+		 * Performs the action.
+		 *
+		 * @param row    The row of the value.
+		 * @param column The column of the value.
+		 */
+		void accept(int row, int column);
+
+	}
+
+}
@@ -0,0 +1,126 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import xxl.core.Position;
+
+/**
+ * An index of the occupied positions of a grid, kept as one bitset of columns per row.
+ * The bitset of a row is only allocated when one of its positions is first occupied, and a separate
+ * bitset tells which rows have any occupied position, so walking the index costs time proportional
+ * to the number of occupied positions rather than to the area of the grid.
+ *
+ * @Serial 202610171400L
+ */
+public class OccupancyIndex implements Serializable {
+
+	/** The occupied columns of each row, offset by one. Rows that never had an occupied position are null. */
+	private final BitSet[] _rows;
+
+	/** The rows, offset by one, that have at least one occupied position. */
+	private final BitSet _occupiedRows;
+
+	/** The number of occupied positions. */
+	private int _size;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171400L;
+
+	/**
+	 * Initializes a new instance of the {@code OccupancyIndex} class for a grid with the given number of rows.
+	 *
+	 * @param rows The number of rows of the grid.
+	 */
+	public OccupancyIndex(int rows) {
+		_rows = new BitSet[rows];
+		_occupiedRows = new BitSet();
+	}
+
+	/**
+	 * Marks the specified coordinates as occupied or as empty.
+	 *
+	 * @param row      The row of the position.
+	 * @param column   The column of the position.
+	 * @param occupied Whether the position is now occupied.
+	 */
+	public void set(int row, int column, boolean occupied) {
+		BitSet columns = _rows[row - 1];
+		if (columns == null) {
+			if (!occupied) {
+				return;
+			}
+			columns = new BitSet();
+			_rows[row - 1] = columns;
+		}
+		if (columns.get(column - 1) == occupied) {
+			return;
+		}
+		columns.set(column - 1, occupied);
+		_size += occupied ? 1 : -1;
+		_occupiedRows.set(row - 1, !columns.isEmpty());
+	}
+
+	/**
+	 * Checks if the specified coordinates are occupied.
+	 *
+	 * @param row    The row of the position.
+	 * @param column The column of the position.
+	 * @return {@code true} if the position is occupied, {@code false} otherwise.
+	 */
+	public boolean isOccupied(int row, int column) {
+		BitSet columns = _rows[row - 1];
+		return columns != null && columns.get(column - 1);
+	}
+
+	/**
+	 * Retrieves the number of occupied positions.
+	 *
+	 * @return The number of occupied positions.
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Gets an iterator over the occupied positions, in row-major order, handed out as coordinates packed
+	 * by {@link Position#pack(int, int)}. Rows without occupied positions are skipped without being visited.
+	 *
+	 * @return An iterator over the packed coordinates of the occupied positions.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+
+			/** The row being walked, offset by one, or -1 if the walk is over. */
+			private int _row = _occupiedRows.nextSetBit(0);
+
+			/** The column of the next occupied position of the row, offset by one. */
+			private int _column = _row < 0 ? -1 : _rows[_row].nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return _row >= 0;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				long position = Position.pack(_row + 1, _column + 1);
+				_column = _rows[_row].nextSetBit(_column + 1);
+				if (_column < 0) {
+					_row = _occupiedRows.nextSetBit(_row + 1);
+					_column = _row < 0 ? -1 : _rows[_row].nextSetBit(0);
+				}
+				return position;
+			}
+
+		};
+	}
+
+}
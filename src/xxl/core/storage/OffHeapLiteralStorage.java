@@ -0,0 +1,385 @@
+package xxl.core.storage;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A class that implements the {@link LiteralStorage} interface keeping the values outside of the Java heap.
+ * Each column is split in chunks of {@value #CHUNK_ROWS} rows, each one a direct {@link ByteBuffer}
+ * allocated when one of its rows is first written to. A chunk holds a one byte type tag and a four byte
+ * payload per row: the integer itself, or the dictionary code of the string. Only the dictionary lives on
+ * the heap, so the garbage collector never has to walk the stored values. A chunk left empty is let go,
+ * and so are the strings no position holds anymore.
+ *
+ * @Serial 202610171920L
+ */
+public class OffHeapLiteralStorage implements LiteralStorage, Serializable {
+
+	/** The number of rows of each chunk. */
+	private static final int CHUNK_ROWS = 1024;
+
+	/** The tag of a row holding nothing. */
+	private static final byte EMPTY = 0;
+
+	/** The tag of a row holding an integer. */
+	private static final byte INTEGER = 1;
+
+	/** The tag of a row holding a string. */
+	private static final byte STRING = 2;
+
+	/** The offset of the payloads inside a chunk, which start right after the tags. */
+	private static final int PAYLOADS = CHUNK_ROWS;
+
+	/** The size in bytes of a chunk. */
+	private static final int CHUNK_BYTES = CHUNK_ROWS + CHUNK_ROWS * Integer.BYTES;
+
+	/** The chunks of every column, indexed by column and then by chunk. Rebuilt when deserialized. */
+	private transient ByteBuffer[][] _columns;
+
+	/** The number of rows holding a value in each chunk, indexed like {@link #_columns}. Rebuilt when deserialized. */
+	private transient int[][] _counts;
+
+	/** The number of rows of the stored grid. */
+	private final int _rows;
+
+	/** The number of columns of the stored grid. */
+	private final int _columnCount;
+
+	/** The distinct strings stored, by their code. */
+	private final StringDictionary _dictionary;
+
+	/** The number of positions holding a value. */
+	private int _size;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171920L;
+
+	/**
+	 * Initializes a new instance of the {@code OffHeapLiteralStorage} class for a grid of the given size.
+	 *
+	 * @param rows    The number of rows of the grid.
+	 * @param columns The number of columns of the grid.
+	 */
+	public OffHeapLiteralStorage(int rows, int columns) {
+		_rows = rows;
+		_columnCount = columns;
+		_columns = new ByteBuffer[columns][];
+		_counts = new int[columns][];
+		_dictionary = new StringDictionary();
+	}
+
+	/**
+	 * Stores an integer at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 */
+	@Override
+	public void setInt(int row, int column, int value) {
+		write(row, column, INTEGER, value);
+	}
+
+	/**
+	 * Stores a string at the specified coordinates, replacing whatever value was there.
+	 *
+	 * @param row    The row where to store the value.
+	 * @param column The column where to store the value.
+	 * @param value  The value to store.
+	 * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+	 */
+	@Override
+	public void setString(int row, int column, String value) {
+		if (row < 1 || row > _rows || column < 1 || column > _columnCount) {
+			throw new IndexOutOfBoundsException(row + ";" + column);
+		}
+		write(row, column, STRING, _dictionary.acquire(value));
+	}
+
+	/**
+	 * Removes the value at the specified coordinates, if there is one. A chunk left empty is let go, along
+	 * with its column if it was the last one.
+	 *
+	 * @param row    The row of the value to remove.
+	 * @param column The column of the value to remove.
+	 */
+	@Override
+	public void clear(int row, int column) {
+		ByteBuffer chunk = chunk(row, column);
+		if (chunk == null) {
+			return;
+		}
+		int offset = (row - 1) % CHUNK_ROWS;
+		byte tag = chunk.get(offset);
+		if (tag == EMPTY) {
+			return;
+		}
+		if (tag == STRING) {
+			_dictionary.release(payload(chunk, offset));
+		}
+		chunk.put(offset, EMPTY);
+		_size--;
+		int index = (row - 1) / CHUNK_ROWS;
+		if (--_counts[column - 1][index] == 0) {
+			releaseChunk(column, index);
+		}
+	}
+
+	/**
+	 * Checks if an integer is stored at the specified coordinates.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return {@code true} if an integer is stored there, {@code false} otherwise.
+	 */
+	@Override
+	public boolean hasInt(int row, int column) {
+		return tag(row, column) == INTEGER;
+	}
+
+	/**
+	 * Retrieves the integer stored at the specified coordinates.
+	 * Only meaningful when {@link #hasInt(int, int)} holds.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The integer stored there.
+	 */
+	@Override
+	public int getInt(int row, int column) {
+		return payload(chunk(row, column), (row - 1) % CHUNK_ROWS);
+	}
+
+	/**
+	 * Retrieves the string stored at the specified coordinates.
+	 *
+	 * @param row    The row of the value.
+	 * @param column The column of the value.
+	 * @return The string stored there, or null if there is none.
+	 */
+	@Override
+	public String getString(int row, int column) {
+		if (tag(row, column) != STRING) {
+			return null;
+		}
+		return _dictionary.get(payload(chunk(row, column), (row - 1) % CHUNK_ROWS));
+	}
+
+	/**
+	 * Retrieves the number of positions holding a value.
+	 *
+	 * @return The number of values stored.
+	 */
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Retrieves the number of distinct strings stored.
+	 *
+	 * @return The number of strings in the dictionary.
+	 */
+	public int getDistinctStringCount() {
+		return _dictionary.size();
+	}
+
+	/**
+	 * Retrieves the number of chunks allocated, which is what the off-heap memory taken grows with.
+	 *
+	 * @return The number of chunks.
+	 */
+	public int getChunkCount() {
+		int count = 0;
+		for (ByteBuffer[] chunks: _columns) {
+			if (chunks == null) {
+				continue;
+			}
+			for (ByteBuffer chunk: chunks) {
+				if (chunk != null) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Calls the given action for the coordinates of every stored value, column by column.
+	 *
+	 * @param action The action receiving the row and the column of each value.
+	 */
+	@Override
+	public void forEachPosition(PositionAction action) {
+		for (int column = 1; column <= _columnCount; column++) {
+			ByteBuffer[] chunks = _columns[column - 1];
+			if (chunks == null) {
+				continue;
+			}
+			for (int index = 0; index < chunks.length; index++) {
+				ByteBuffer chunk = chunks[index];
+				if (chunk == null) {
+					continue;
+				}
+				for (int offset = 0; offset < CHUNK_ROWS; offset++) {
+					if (chunk.get(offset) != EMPTY) {
+						action.accept(index * CHUNK_ROWS + offset + 1, column);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a tag and its payload at the specified coordinates, allocating the chunk if needed. The string
+	 * the position held, if any, is released, so a string payload must have been acquired beforehand.
+	 *
+	 * @param row     The row where to write.
+	 * @param column  The column where to write.
+	 * @param tag     The type tag to write.
+	 * @param payload The payload to write.
+	 * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+	 */
+	private void write(int row, int column, byte tag, int payload) {
+		if (row < 1 || row > _rows || column < 1 || column > _columnCount) {
+			throw new IndexOutOfBoundsException(row + ";" + column);
+		}
+		if (_columns[column - 1] == null) {
+			_columns[column - 1] = new ByteBuffer[(_rows + CHUNK_ROWS - 1) / CHUNK_ROWS];
+			_counts[column - 1] = new int[_columns[column - 1].length];
+		}
+		ByteBuffer[] chunks = _columns[column - 1];
+		int index = (row - 1) / CHUNK_ROWS;
+		if (chunks[index] == null) {
+			chunks[index] = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+		}
+		int offset = (row - 1) % CHUNK_ROWS;
+		byte previous = chunks[index].get(offset);
+		if (previous == EMPTY) {
+			_counts[column - 1][index]++;
+			_size++;
+		}
+		else if (previous == STRING) {
+			_dictionary.release(payload(chunks[index], offset));
+		}
+		chunks[index].put(offset, tag);
+		chunks[index].putInt(PAYLOADS + offset * Integer.BYTES, payload);
+	}
+
+	/**
+	 * Lets go of an empty chunk, and of its column if no chunk is left in it. The buffer's memory is given
+	 * back once the garbage collector reclaims it.
+	 *
+	 * @param column The column of the chunk.
+	 * @param index  The index of the chunk inside its column.
+	 */
+	private void releaseChunk(int column, int index) {
+		ByteBuffer[] chunks = _columns[column - 1];
+		chunks[index] = null;
+		for (ByteBuffer chunk: chunks) {
+			if (chunk != null) {
+				return;
+			}
+		}
+		_columns[column - 1] = null;
+		_counts[column - 1] = null;
+	}
+
+	/**
+	 * Retrieves the chunk holding the specified coordinates.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The chunk, or null if it was never allocated or the coordinates are outside of the grid.
+	 */
+	private ByteBuffer chunk(int row, int column) {
+		if (row < 1 || row > _rows || column < 1 || column > _columnCount) {
+			return null;
+		}
+		ByteBuffer[] chunks = _columns[column - 1];
+		return chunks == null ? null : chunks[(row - 1) / CHUNK_ROWS];
+	}
+
+	/**
+	 * Retrieves the type tag at the specified coordinates.
+	 *
+	 * @param row    The row to look for.
+	 * @param column The column to look for.
+	 * @return The tag of the value stored there.
+	 */
+	private byte tag(int row, int column) {
+		ByteBuffer chunk = chunk(row, column);
+		return chunk == null ? EMPTY : chunk.get((row - 1) % CHUNK_ROWS);
+	}
+
+	/**
+	 * Reads the payload of a row of a chunk.
+	 *
+	 * @param chunk  The chunk to read from.
+	 * @param offset The row inside the chunk.
+	 * @return The payload of the row.
+	 */
+	private static int payload(ByteBuffer chunk, int offset) {
+		return chunk.getInt(PAYLOADS + offset * Integer.BYTES);
+	}
+
+	/**
+	 * Serializes the storage. Direct buffers can't be serialized, so each stored value is written as
+	 * its coordinates, its tag and its payload.
+	 *
+	 * @param out The stream to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Serial
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		IOException[] failure = new IOException[1];
+		forEachPosition((row, column) -> {
+			if (failure[0] != null) {
+				return;
+			}
+			try {
+				out.writeInt(row);
+				out.writeInt(column);
+				out.writeByte(tag(row, column));
+				out.writeInt(payload(chunk(row, column), (row - 1) % CHUNK_ROWS));
+			}
+			catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+	/**
+	 * Deserializes the storage, allocating new direct buffers for the stored values. The dictionary is read
+	 * with its counts, which already account for the strings written back.
+	 *
+	 * @param in The stream to read from.
+	 * @throws IOException if an I/O error occurs.
+	 * @throws ClassNotFoundException if a serialized class can't be found.
+	 */
+	@Serial
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		_columns = new ByteBuffer[_columnCount][];
+		_counts = new int[_columnCount][];
+		int size = _size;
+		_size = 0;
+		for (int i = 0; i < size; i++) {
+			int row = in.readInt();
+			int column = in.readInt();
+			byte tag = in.readByte();
+			write(row, column, tag, in.readInt());
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import xxl.core.Position;
+
+/**
+ * A class that implements the {@link Storage} interface using an open-addressing hash table.
+ * Each element is keyed by its coordinates packed into a single {@code long} (row in the upper half,
+ * column in the lower half), so lookups never create nor compare {@link Position} objects.
+ * It is meant for big sheets where only a small part of the positions is ever used.
+ * Storing null at a position removes its element.
+ *
+ * @param <T> The type of elements to be stored.
+ *
+ * @Serial 202610171040L
+ */
+public class PackedHashStorage<T> implements Storage<T>, Serializable {
+
+	/** The key of an empty slot. No valid position packs to it, since rows and columns start at 1. */
+	private static final long EMPTY_KEY = 0L;
+
+	/** The capacity of a new table. Must be a power of two. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The packed coordinates of each slot. */
+	private long[] _keys;
+
+	/** The element of each slot. */
+	private Object[] _values;
+
+	/** The number of elements in the storage. */
+	private int _size;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171040L;
+
+	/**
+	 * Initializes a new instance of the {@code PackedHashStorage} class.
+	 */
+	public PackedHashStorage() {
+		_keys = new long[INITIAL_CAPACITY];
+		_values = new Object[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Sets the element at the specified position in the storage.
+	 *
+	 * @param position The position at which to store the element.
+	 * @param element  The element to store, or null to remove the one there.
+	 */
+	@Override
+	public void set(Position position, T element) {
+		long key = position.pack();
+		int slot = findSlot(key);
+		if (element == null) {
+			if (_keys[slot] != EMPTY_KEY) {
+				removeSlot(slot);
+				_size--;
+				// Gives memory back once the table is mostly empty
+				if (_size * 8 < _keys.length && _keys.length > INITIAL_CAPACITY) {
+					resize(_keys.length / 2);
+				}
+			}
+			return;
+		}
+		if (_keys[slot] == EMPTY_KEY) {
+			_keys[slot] = key;
+			_size++;
+		}
+		_values[slot] = element;
+		// Keeps the table at most half full, so probe sequences stay short
+		if (_size * 2 > _keys.length) {
+			resize(_keys.length * 2);
+		}
+	}
+
+	/**
+	 * Retrieves the element at the specified position from the storage.
+	 *
+	 * @param position The position of the element to retrieve.
+	 * @return The element at the specified position, or null if it does not exist.
+	 */
+	@Override
+	public T get(Position position) {
+		return get(position.getRow(), position.getColumn());
+	}
+
+	/**
+	 * Retrieves the element at the specified coordinates from the storage.
+	 *
+	 * @param row    The row of the element to retrieve.
+	 * @param column The column of the element to retrieve.
+	 * @return The element at the specified coordinates, or null if it does not exist.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int row, int column) {
+		return (T) _values[findSlot(Position.pack(row, column))];
+	}
+
+	/**
+	 * Gets an iterator for iterating over elements in the storage, in row-major order.
+	 * The order is obtained by sorting the packed keys, which sort exactly like their positions.
+	 *
+	 * @return An iterator for the elements in the storage.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		long[] sortedKeys = new long[_size];
+		int count = 0;
+		for (long key: _keys) {
+			if (key != EMPTY_KEY) {
+				sortedKeys[count++] = key;
+			}
+		}
+		Arrays.sort(sortedKeys);
+
+		return new Iterator<T>() {
+
+			/** The index of the next key to visit. */
+			private int _next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _next < sortedKeys.length;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return (T) _values[findSlot(sortedKeys[_next++])];
+			}
+
+		};
+	}
+
+	/**
+	 * Spreads the bits of a key, so that neighbouring positions land on distant slots.
+	 *
+	 * @param key The key to hash.
+	 * @return The hash of the key.
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/**
+	 * Finds the slot holding the given key, or the empty slot where it would be inserted.
+	 *
+	 * @param key The key to look for.
+	 * @return The index of the slot.
+	 */
+	private int findSlot(long key) {
+		int mask = _keys.length - 1;
+		int slot = hash(key) & mask;
+		while (_keys[slot] != EMPTY_KEY && _keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Empties a slot of the table, shifting back the elements of its probe sequence so that every
+	 * element stays reachable without tombstones.
+	 *
+	 * @param slot The slot to empty.
+	 */
+	private void removeSlot(int slot) {
+		int mask = _keys.length - 1;
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (_keys[next] != EMPTY_KEY) {
+			int home = hash(_keys[next]) & mask;
+			// Moves the element back only if the hole lies between its home slot and its slot
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				_keys[hole] = _keys[next];
+				_values[hole] = _values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		_keys[hole] = EMPTY_KEY;
+		_values[hole] = null;
+	}
+
+	/**
+	 * Moves every element to a table with the given capacity.
+	 *
+	 * @param capacity The new capacity. Must be a power of two.
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = _keys;
+		Object[] oldValues = _values;
+		_keys = new long[capacity];
+		_values = new Object[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY_KEY) {
+				int slot = findSlot(oldKeys[i]);
+				_keys[slot] = oldKeys[i];
+				_values[slot] = oldValues[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package xxl.core.storage;
+
+/**
+ * An action over the positions of a range of a {@link Storage}, visited one at a time.
+ *
+ * @param <T> The type of elements stored.
+ */
+@FunctionalInterface
+public interface RangeAction<T> {
+
+	/**
+	 * Performs the action over a position of the range.
+	 *
+	 * @param row     The row of the position.
+	 * @param column  The column of the position.
+	 * @param element The element stored at the position, or null if there is none.
+	 * @return {@code true} to keep visiting the range, {@code false} to stop.
+	 */
+	boolean accept(int row, int column, T element);
+
+}
@@ -28,10 +28,57 @@ public interface Storage<T> {
 	public T get(Position position);
 
 	/**
-	* Get an iterator for iterating over elements in the storage.
+	* Get the element at the specified coordinates from the storage, without the need of a {@link Position}.
+	*
+	* @param row    The row of the element to retrieve.
+	* @param column The column of the element to retrieve.
+	* @return The element at the specified coordinates, or null if it does not exist.
+	*/
+	public T get(int row, int column);
+
+	/**
+	* Get an iterator for iterating over elements in the storage, in row-major order.
 	*
 	* @return An iterator for the elements in the storage.
 	*/
 	public Iterator<T> iterator();
 
+	/**
+	* Visit every position of a slice of a row, in order, including the empty ones.
+	* No collection is built: each position is handed to the action as it is reached.
+	*
+	* @param row        The row of the slice.
+	* @param fromColumn The first column of the slice.
+	* @param toColumn   The last column of the slice.
+	* @param action     The action to perform over each position.
+	* @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	*/
+	public default boolean forEachInRow(int row, int fromColumn, int toColumn, RangeAction<T> action) {
+		for (int column = fromColumn; column <= toColumn; column++) {
+			if (!action.accept(row, column, get(row, column))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	* Visit every position of a slice of a column, in order, including the empty ones.
+	* No collection is built: each position is handed to the action as it is reached.
+	*
+	* @param column  The column of the slice.
+	* @param fromRow The first row of the slice.
+	* @param toRow   The last row of the slice.
+	* @param action  The action to perform over each position.
+	* @return {@code true} if the whole slice was visited, {@code false} if the action stopped it.
+	*/
+	public default boolean forEachInColumn(int column, int fromRow, int toRow, RangeAction<T> action) {
+		for (int row = fromRow; row <= toRow; row++) {
+			if (!action.accept(row, column, get(row, column))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 }
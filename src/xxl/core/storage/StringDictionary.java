@@ -0,0 +1,105 @@
+package xxl.core.storage;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary handing a small integer code to each distinct string kept by a {@link LiteralStorage}, so
+ * repeated strings are stored once. Each code counts the positions holding its string, and is given back
+ * once none does: the string is let go and the code is handed out again before any new one, so the
+ * dictionary of a long-lived sheet only holds the strings still in use.
+ *
+ * @Serial 202610171900L
+ */
+class StringDictionary implements Serializable {
+
+	/** The capacity of a new dictionary. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The string of each code, or null if the code is free. */
+	private final List<String> _strings = new ArrayList<String>();
+
+	/** The code of each string in use. */
+	private final Map<String, Integer> _codes = new HashMap<String, Integer>();
+
+	/** The number of positions holding the string of each code. */
+	private int[] _references = new int[INITIAL_CAPACITY];
+
+	/** The free codes, to be handed out again. */
+	private int[] _free = new int[INITIAL_CAPACITY];
+
+	/** The number of free codes. */
+	private int _freeCount;
+
+	/** The serial version UID for ensuring version compatibility during serialization. */
+	@Serial
+	private static final long serialVersionUID = 202610171900L;
+
+	/**
+	 * Retrieves the code of a string about to be stored at one more position, adding the string if it is new.
+	 *
+	 * @param string The string to store.
+	 * @return The code of the string.
+	 */
+	int acquire(String string) {
+		Integer code = _codes.get(string);
+		if (code == null) {
+			if (_freeCount > 0) {
+				code = _free[--_freeCount];
+				_strings.set(code, string);
+			}
+			else {
+				code = _strings.size();
+				_strings.add(string);
+				if (code == _references.length) {
+					_references = Arrays.copyOf(_references, code * 2);
+				}
+			}
+			_codes.put(string, code);
+		}
+		_references[code]++;
+		return code;
+	}
+
+	/**
+	 * Tells the dictionary a position no longer holds the string of a code, letting the string go if no
+	 * other position holds it.
+	 *
+	 * @param code The code of the string.
+	 */
+	void release(int code) {
+		if (--_references[code] > 0) {
+			return;
+		}
+		_codes.remove(_strings.set(code, null));
+		if (_freeCount == _free.length) {
+			_free = Arrays.copyOf(_free, _freeCount * 2);
+		}
+		_free[_freeCount++] = code;
+	}
+
+	/**
+	 * Retrieves the string of a code in use.
+	 *
+	 * @param code The code of the string.
+	 * @return The string.
+	 */
+	String get(int code) {
+		return _strings.get(code);
+	}
+
+	/**
+	 * Retrieves the number of distinct strings in use.
+	 *
+	 * @return The number of strings.
+	 */
+	int size() {
+		return _codes.size();
+	}
+
+}
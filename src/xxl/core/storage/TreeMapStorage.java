@@ -46,6 +46,18 @@ public class TreeMapStorage<T> implements Storage<T>, Serializable {
 		return _stored.get(position);
 	}
 
+	/**
+	 * Retrieves the element at the specified coordinates from the storage.
+	 *
+	 * @param row    The row of the element to retrieve.
+	 * @param column The column of the element to retrieve.
+	 * @return The element at the specified coordinates, or null if it does not exist.
+	 */
+	@Override
+	public T get(int row, int column) {
+		return _stored.get(new Position(row, column));
+	}
+
 	/**
 	 * Gets an iterator for iterating over elements in the storage.
 	 *
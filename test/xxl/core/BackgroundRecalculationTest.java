@@ -0,0 +1,93 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import xxl.core.content.literal.LiteralInteger;
+
+/**
+ * Tests for the background recalculation of {@link Spreadsheet}, covering the visualizations made while
+ * another thread holds the lock.
+ */
+class BackgroundRecalculationTest {
+
+	/** The length of the chain of formulas recalculated in the background. */
+	private static final int CHAIN = 2000;
+
+	/** A spreadsheet big enough to keep its cells in an adaptive storage. */
+	private Spreadsheet _spreadsheet;
+
+	@BeforeEach
+	void createSpreadsheet() throws Exception {
+		_spreadsheet = new Spreadsheet(3000, 3000);
+		_spreadsheet.insertGamma("1;1", "1");
+		for (int row = 2; row <= CHAIN; row++) {
+			_spreadsheet.insertGamma(row + ";1", "=ADD(" + (row - 1) + ";1,1)");
+		}
+		_spreadsheet.setBackgroundRecalculation(true);
+	}
+
+	@AfterEach
+	void stopWorker() {
+		_spreadsheet.setBackgroundRecalculation(false);
+	}
+
+	@Test
+	void visualizesWhileCellsAreStored() throws Exception {
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread reader = new Thread(() -> {
+			try {
+				while (!done.get()) {
+					_spreadsheet.visualize("1;1:" + CHAIN + ";1");
+					_spreadsheet.visualize("1;2:" + CHAIN + ";2");
+				}
+			}
+			catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		for (int round = 2; round <= 5; round++) {
+			_spreadsheet.insertGamma("1;1", Integer.toString(round));
+			// Edits take the lock too, so the reader also sees literals and cells stored by this thread
+			for (int row = 1; row <= CHAIN; row += 3) {
+				if (round % 2 == 0) {
+					_spreadsheet.insertGamma(row + ";2", "'s" + row);
+				}
+				else {
+					_spreadsheet.deleteGamma(row + ";2");
+				}
+				_spreadsheet.insertGamma(row + ";3", "=ADD(" + row + ";1," + row + ";1)");
+				_spreadsheet.deleteGamma(row + ";3");
+			}
+		}
+		_spreadsheet.awaitQuiescence();
+		done.set(true);
+		reader.join();
+		assertNull(failure.get());
+		assertEquals(CHAIN + 4, _spreadsheet.getValue(CHAIN, 1).getIntValue());
+		Spreadsheet.Visualization visualization = _spreadsheet.visualize(CHAIN + ";1");
+		assertFalse(visualization.isOutdated());
+	}
+
+	@Test
+	void rejectsPositionsOutsideWithoutChangingAnything() throws Exception {
+		_spreadsheet.insertGamma("1;1", "2");
+		assertThrows(IndexOutOfBoundsException.class,
+				() -> _spreadsheet.insertContent(3001, 1, new LiteralInteger(7)));
+		_spreadsheet.awaitQuiescence();
+		assertEquals(CHAIN + 1, _spreadsheet.getValue(CHAIN, 1).getIntValue());
+		assertFalse(_spreadsheet.visualize(CHAIN + ";1").isOutdated());
+	}
+
+}
@@ -0,0 +1,97 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the batches of edits of {@link Spreadsheet}, covering what committing them recalculates.
+ */
+class BatchTest {
+
+	@Test
+	void recalculatesOnceWhenCommitted() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		spreadsheet.insertGamma("3;1", "=MUL(2;1,2)");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recalculations = graph.getRecalculationCount();
+		long recomputed = graph.getRecomputeCount() + graph.getIncrementalUpdateCount();
+		spreadsheet.beginBatch();
+		for (int value = 2; value <= 5; value++) {
+			spreadsheet.insertGamma("1;1", Integer.toString(value));
+		}
+		spreadsheet.commitBatch();
+		assertEquals(1, graph.getRecalculationCount() - recalculations);
+		assertEquals(2, graph.getRecomputeCount() + graph.getIncrementalUpdateCount() - recomputed);
+		assertEquals(12, valueAt(spreadsheet, 3, 1));
+	}
+
+	@Test
+	void recalculatesOnlyWhenTheOutermostBatchIsCommitted() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recalculations = graph.getRecalculationCount();
+		spreadsheet.beginBatch();
+		spreadsheet.insertGamma("1;1", "2");
+		spreadsheet.beginBatch();
+		spreadsheet.insertGamma("1;1", "3");
+		spreadsheet.commitBatch();
+		assertEquals(0, graph.getRecalculationCount() - recalculations);
+		spreadsheet.commitBatch();
+		assertEquals(1, graph.getRecalculationCount() - recalculations);
+		assertEquals(4, valueAt(spreadsheet, 2, 1));
+	}
+
+	@Test
+	void leavesUnchangedFormulasAloneWhenEditsCancelOut() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount() + graph.getIncrementalUpdateCount();
+		spreadsheet.beginBatch();
+		spreadsheet.insertGamma("1;1", "9");
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.commitBatch();
+		assertEquals(0, graph.getRecomputeCount() + graph.getIncrementalUpdateCount() - recomputed);
+		assertEquals(2, valueAt(spreadsheet, 2, 1));
+	}
+
+	@Test
+	void recomputesFormulasWrittenInTheBatch() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.beginBatch();
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		spreadsheet.insertGamma("1;1", "6");
+		spreadsheet.insertGamma("3;1", "=AVERAGE(1;1:2;1)");
+		spreadsheet.commitBatch();
+		assertEquals(7, valueAt(spreadsheet, 2, 1));
+		assertEquals(6, valueAt(spreadsheet, 3, 1));
+	}
+
+	@Test
+	void rejectsACommitWithoutABatch() {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		assertThrows(IllegalStateException.class, spreadsheet::commitBatch);
+	}
+
+	/**
+	 * Reads the integer value at the given coordinates.
+	 *
+	 * @param spreadsheet The spreadsheet to read.
+	 * @param row         The row of the value.
+	 * @param column      The column of the value.
+	 * @return The integer value there.
+	 * @throws Exception if the value is not an integer.
+	 */
+	private static int valueAt(Spreadsheet spreadsheet, int row, int column) throws Exception {
+		return spreadsheet.getContent(new Position(row, column)).getValue().getIntValue();
+	}
+
+}
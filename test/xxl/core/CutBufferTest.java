@@ -0,0 +1,107 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for copying, cutting and pasting ranges of {@link Spreadsheet}, run on a sheet of each size that
+ * keeps its cells and literals in different storages.
+ */
+class CutBufferTest {
+
+	@Test
+	void copiesAndPastesOnADenseSheet() throws Exception {
+		copyAndPaste(new Spreadsheet(10, 10));
+	}
+
+	@Test
+	void copiesAndPastesOnAnAdaptiveSheet() throws Exception {
+		copyAndPaste(new Spreadsheet(3000, 3000));
+	}
+
+	@Test
+	void copiesAndPastesOnAnOffHeapSheet() throws Exception {
+		copyAndPaste(new Spreadsheet(5000, 4000));
+	}
+
+	@Test
+	void cutsAndPastesOnADenseSheet() throws Exception {
+		cutAndPaste(new Spreadsheet(10, 10));
+	}
+
+	@Test
+	void cutsAndPastesOnAnAdaptiveSheet() throws Exception {
+		cutAndPaste(new Spreadsheet(3000, 3000));
+	}
+
+	@Test
+	void cutsAndPastesOnAnOffHeapSheet() throws Exception {
+		cutAndPaste(new Spreadsheet(5000, 4000));
+	}
+
+	/**
+	 * Writes an integer, a string and a formula on the first row of a spreadsheet.
+	 *
+	 * @param spreadsheet The spreadsheet to write to.
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void fill(Spreadsheet spreadsheet) throws Exception {
+		spreadsheet.insertGamma("1;1", "3");
+		spreadsheet.insertGamma("1;2", "'abc");
+		spreadsheet.insertGamma("1;3", "=ADD(1;1,1)");
+	}
+
+	/**
+	 * Copies the first row of a filled spreadsheet to the second, and checks both rows and the formulas reading them.
+	 *
+	 * @param spreadsheet The spreadsheet to fill.
+	 * @throws Exception if an edit is rejected.
+	 */
+	private static void copyAndPaste(Spreadsheet spreadsheet) throws Exception {
+		fill(spreadsheet);
+		spreadsheet.insertGamma("3;1", "=ADD(2;1,2;3)");
+		spreadsheet.copyGamma("1;1:1;3");
+		spreadsheet.pasteGamma("2;1:2;3");
+		assertEquals("1;1|3\n1;2|'abc\n1;3|4=ADD(1;1,1)", spreadsheet.visualizeGamma("1;1:1;3"));
+		assertEquals("2;1|3\n2;2|'abc\n2;3|4=ADD(1;1,1)", spreadsheet.visualizeGamma("2;1:2;3"));
+		assertEquals(7, valueAt(spreadsheet, 3, 1));
+		spreadsheet.insertGamma("1;1", "5");
+		assertEquals(6, valueAt(spreadsheet, 2, 3));
+		assertEquals(9, valueAt(spreadsheet, 3, 1));
+	}
+
+	/**
+	 * Cuts the first row of a filled spreadsheet and pastes it on the second, and checks both rows and the
+	 * formulas reading them.
+	 *
+	 * @param spreadsheet The spreadsheet to fill.
+	 * @throws Exception if an edit is rejected.
+	 */
+	private static void cutAndPaste(Spreadsheet spreadsheet) throws Exception {
+		fill(spreadsheet);
+		spreadsheet.insertGamma("3;1", "=ADD(1;1,2;1)");
+		spreadsheet.cutGamma("1;1:1;3");
+		assertEquals("1;1|\n1;2|\n1;3|", spreadsheet.visualizeGamma("1;1:1;3"));
+		assertEquals("3;1|#VALUE=ADD(1;1,2;1)", spreadsheet.visualizeGamma("3;1"));
+		spreadsheet.pasteGamma("2;1");
+		assertEquals("2;1|3\n2;2|'abc\n2;3|#VALUE=ADD(1;1,1)", spreadsheet.visualizeGamma("2;1:2;3"));
+		spreadsheet.insertGamma("1;1", "2");
+		assertEquals(3, valueAt(spreadsheet, 2, 3));
+		assertEquals(5, valueAt(spreadsheet, 3, 1));
+	}
+
+	/**
+	 * Reads the integer value at the given coordinates.
+	 *
+	 * @param spreadsheet The spreadsheet to read.
+	 * @param row         The row of the value.
+	 * @param column      The column of the value.
+	 * @return The integer value there.
+	 * @throws Exception if the value is not an integer.
+	 */
+	private static int valueAt(Spreadsheet spreadsheet, int row, int column) throws Exception {
+		return spreadsheet.getContent(new Position(row, column)).getValue().getIntValue();
+	}
+
+}
@@ -0,0 +1,82 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the cycles of formulas reading each other, covering how they are flagged and cleared.
+ */
+class CycleTest {
+
+	@Test
+	void flagsFormulasReadingEachOther() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(5, 5);
+		spreadsheet.insertGamma("1;1", "=1;2");
+		spreadsheet.insertGamma("1;2", "=ADD(1;1,1)");
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		assertTrue(graph.isCyclic(1, 1));
+		assertTrue(graph.isCyclic(1, 2));
+		assertFalse(graph.isCyclic(2, 1));
+		assertEquals("1;1|#VALUE=1;2", spreadsheet.visualizeGamma("1;1"));
+		assertEquals("2;1|#VALUE=ADD(1;1,1)", spreadsheet.visualizeGamma("2;1"));
+	}
+
+	@Test
+	void flagsAFormulaReadingARangeItLiesIn() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(5, 5);
+		spreadsheet.insertGamma("1;1", "2");
+		spreadsheet.insertGamma("1;3", "=PRODUCT(1;1:1;3)");
+		assertTrue(spreadsheet.getDependencyGraph().isCyclic(1, 3));
+		assertEquals("1;3|#VALUE=PRODUCT(1;1:1;3)", spreadsheet.visualizeGamma("1;3"));
+	}
+
+	@Test
+	void clearsTheCycleWhenAFormulaOfItIsOverwritten() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(5, 5);
+		spreadsheet.insertGamma("1;1", "=1;2");
+		spreadsheet.insertGamma("1;2", "=ADD(1;1,1)");
+		spreadsheet.insertGamma("2;1", "=ADD(1;1,1)");
+		spreadsheet.insertGamma("1;1", "4");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		assertFalse(graph.isCyclic(1, 1));
+		assertFalse(graph.isCyclic(1, 2));
+		assertEquals(5, spreadsheet.getValue(1, 2).getIntValue());
+		assertEquals(5, spreadsheet.getValue(2, 1).getIntValue());
+	}
+
+	@Test
+	void clearsTheCycleWhenAFormulaOfItIsDeleted() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(5, 5);
+		spreadsheet.insertGamma("1;1", "=1;2");
+		spreadsheet.insertGamma("1;2", "=1;3");
+		spreadsheet.insertGamma("1;3", "=1;1");
+		spreadsheet.deleteGamma("1;3");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		assertFalse(graph.isCyclic(1, 1));
+		assertFalse(graph.isCyclic(1, 2));
+		assertEquals("1;1|#VALUE=1;2", spreadsheet.visualizeGamma("1;1"));
+		spreadsheet.insertGamma("1;3", "7");
+		assertEquals(7, spreadsheet.getValue(1, 1).getIntValue());
+	}
+
+	@Test
+	void keepsTheCyclesNotGoingThroughAClearedPosition() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(5, 5);
+		spreadsheet.insertGamma("1;1", "=1;2");
+		spreadsheet.insertGamma("1;2", "=ADD(1;1,2;2)");
+		spreadsheet.insertGamma("2;2", "=1;2");
+		spreadsheet.insertGamma("1;1", "3");
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		assertFalse(graph.isCyclic(1, 1));
+		assertTrue(graph.isCyclic(1, 2));
+		assertTrue(graph.isCyclic(2, 2));
+		spreadsheet.insertGamma("2;2", "1");
+		assertFalse(graph.isCyclic(1, 2));
+		assertEquals(4, spreadsheet.getValue(1, 2).getIntValue());
+	}
+
+}
@@ -0,0 +1,145 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link DependencyGraph}, covering how many formulas a change recomputes and in which order.
+ */
+class DependencyGraphTest {
+
+	/** The length of the chains of formulas, long enough for a quadratic recalculation to show. */
+	private static final int CHAIN = 50000;
+
+	/** The number of formulas reading the same cells, enough for their level to be spread over threads. */
+	private static final int WIDE_LEVEL = 1000;
+
+	@Test
+	void recomputesEachFormulaOfADiamondOnce() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("2;1", "2");
+		spreadsheet.insertGamma("1;2", "=MUL(1;1,1)");
+		spreadsheet.insertGamma("2;2", "=MUL(1;1,2;1)");
+		spreadsheet.insertGamma("1;3", "=MUL(1;2,2;2)");
+		assertEquals(2, valueAt(spreadsheet, 1, 3));
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "5");
+		assertEquals(3, graph.getRecomputeCount() - recomputed);
+		assertEquals(50, valueAt(spreadsheet, 1, 3));
+	}
+
+	@Test
+	void recomputesEachFormulaOnceWhenPathsHaveDifferentLengths() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("2;1", "=MUL(1;1,1)");
+		spreadsheet.insertGamma("3;1", "=MUL(2;1,1)");
+		spreadsheet.insertGamma("4;1", "=MUL(3;1,1)");
+		spreadsheet.insertGamma("5;2", "=MUL(1;1,4;1)");
+		assertEquals(1, valueAt(spreadsheet, 5, 2));
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "10");
+		assertEquals(4, graph.getRecomputeCount() - recomputed);
+		assertEquals(100, valueAt(spreadsheet, 5, 2));
+	}
+
+	@Test
+	void stopsWhereValuesStopChanging() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(10, 10);
+		spreadsheet.insertGamma("1;1", "1");
+		spreadsheet.insertGamma("1;2", "0");
+		spreadsheet.insertGamma("2;1", "=MUL(1;1,1;2)");
+		for (int row = 3; row <= 10; row++) {
+			spreadsheet.insertGamma(row + ";1", "=MUL(" + (row - 1) + ";1,1)");
+		}
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "7");
+		assertEquals(1, graph.getRecomputeCount() - recomputed);
+		assertEquals(0, valueAt(spreadsheet, 10, 1));
+	}
+
+	@Test
+	void buildsAChainFromTheBottomInLinearTime() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(CHAIN, 2);
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		for (int row = CHAIN; row > 1; row--) {
+			spreadsheet.insertGamma(row + ";1", "=MUL(" + (row - 1) + ";1,1)");
+		}
+		// Each formula written only changes the one reading it, from one error to another
+		assertTrue(graph.getRecomputeCount() <= 2L * CHAIN);
+		spreadsheet.insertGamma("1;1", "1");
+		assertEquals(1, valueAt(spreadsheet, CHAIN, 1));
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "2");
+		assertEquals(CHAIN - 1, graph.getRecomputeCount() - recomputed);
+		assertEquals(2, valueAt(spreadsheet, CHAIN, 1));
+	}
+
+	@Test
+	void buildsAChainFromTheTop() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(CHAIN, 2);
+		spreadsheet.insertGamma("1;1", "1");
+		for (int row = 2; row <= CHAIN; row++) {
+			spreadsheet.insertGamma(row + ";1", "=AVERAGE(" + (row - 1) + ";1:" + (row - 1) + ";1)");
+		}
+		assertEquals(1, valueAt(spreadsheet, CHAIN, 1));
+	}
+
+	@Test
+	void keepsTheOrderOfFormulasWrittenBetweenOthers() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(100, 2);
+		spreadsheet.insertGamma("1;1", "1");
+		// Writes every other link first, then fills the gaps, so ranks have to make room in between
+		for (int row = 100; row >= 2; row -= 2) {
+			spreadsheet.insertGamma(row + ";1", "=MUL(" + (row - 1) + ";1,1)");
+		}
+		for (int row = 3; row <= 99; row += 2) {
+			spreadsheet.insertGamma(row + ";1", "=MUL(" + (row - 1) + ";1,1)");
+		}
+		assertEquals(1, valueAt(spreadsheet, 100, 1));
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "3");
+		assertEquals(99, graph.getRecomputeCount() - recomputed);
+		assertEquals(3, valueAt(spreadsheet, 100, 1));
+	}
+
+	@Test
+	void recomputesAWideLevelInParallel() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(WIDE_LEVEL + 1, 3);
+		spreadsheet.getDependencyGraph().setParallel(true);
+		spreadsheet.insertGamma("1;1", "'a");
+		spreadsheet.insertGamma("1;2", "'b");
+		spreadsheet.insertGamma("1;3", "'c");
+		for (int row = 2; row <= WIDE_LEVEL + 1; row++) {
+			spreadsheet.insertGamma(row + ";1", "=CONCAT(1;1:1;3)");
+		}
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		long recomputed = graph.getRecomputeCount();
+		spreadsheet.insertGamma("1;1", "'x");
+		assertEquals(WIDE_LEVEL, graph.getRecomputeCount() - recomputed);
+		for (int row = 2; row <= WIDE_LEVEL + 1; row++) {
+			assertEquals("xbc", spreadsheet.getContent(new Position(row, 1)).getValue().getStringValue());
+		}
+	}
+
+	/**
+	 * Reads the integer value at the given coordinates.
+	 *
+	 * @param spreadsheet The spreadsheet to read.
+	 * @param row         The row of the value.
+	 * @param column      The column of the value.
+	 * @return The integer value there.
+	 * @throws Exception if the value is not an integer.
+	 */
+	private static int valueAt(Spreadsheet spreadsheet, int row, int column) throws Exception {
+		return spreadsheet.getContent(new Position(row, column)).getValue().getIntValue();
+	}
+
+}
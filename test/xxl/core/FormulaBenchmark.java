@@ -0,0 +1,369 @@
+package xxl.core;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import xxl.core.content.Observer;
+import xxl.core.content.literal.Literal;
+import xxl.core.content.literal.LiteralInteger;
+import xxl.core.content.literal.LiteralString;
+import xxl.core.exception.InvalidValueTypeException;
+
+/**
+ * Times how formulas are evaluated and recalculated: recomputing interval functions in full and what that
+ * allocates, updating an average and a product over a million cells incrementally against recomputing
+ * them, recalculating independent formulas in parallel against on a single thread, reading mixed literals
+ * through their type tags against catching exceptions, evaluating chains of binary functions interpreted
+ * against compiled, the memory held by formulas filled down a column with their operands shared against
+ * kept apart, and editing a column read by formulas nobody reads evaluated eagerly against lazily. Each case
+ * is run a few times first, so the timings are taken once the code is compiled.
+ * <p>
+ * Run it with {@code java xxl.core.FormulaBenchmark}. It is not a test, so it doesn't run with them.
+ */
+public class FormulaBenchmark {
+
+	/** The number of cells read by the interval functions recomputed in full. */
+	private static final int INTERVAL_WIDTH = 1000;
+
+	/** The number of times the interval functions are recomputed in each run. */
+	private static final int RECOMPUTATIONS = 10000;
+
+	/** The number of cells of the column the incrementally updated functions read. */
+	private static final int INCREMENTAL_ROWS = 1000000;
+
+	/** The number of cells of the column written in each run, with the function told or recomputed. */
+	private static final int INCREMENTAL_EDITS = 200;
+
+	/** The number of independent formulas recalculated by a single change. */
+	private static final int INDEPENDENT_FORMULAS = 800;
+
+	/** The number of cells each independent formula reads. */
+	private static final int INDEPENDENT_WIDTH = 2000;
+
+	/** The number of binary functions in each chain. */
+	private static final int CHAIN = 1000;
+
+	/** The number of formulas filled down the column whose memory is measured. */
+	private static final int FILLED_FORMULAS = 200000;
+
+	/** The number of formulas reading the column edited with the evaluation eager or lazy. */
+	private static final int UNREAD_FORMULAS = 100;
+
+	/** The number of cells of the column edited with the evaluation eager or lazy, each written once per run. */
+	private static final int UNREAD_ROWS = 1000;
+
+	/** The number of literals of the mixed range read in each run. */
+	private static final int MIXED_LITERALS = 1000000;
+
+	/** The number of runs left out of the timings. */
+	private static final int WARMUP_RUNS = 3;
+
+	/** The number of runs timed. */
+	private static final int TIMED_RUNS = 5;
+
+	/** Keeps the results alive, so the computations aren't optimized away. */
+	private static long _sink;
+
+	/**
+	 * Runs the benchmark and prints the timings.
+	 *
+	 * @param args Unused.
+	 * @throws Exception if a content is rejected.
+	 */
+	public static void main(String[] args) throws Exception {
+		intervalRecomputation();
+		incrementalUpdates();
+		parallelRecalculation();
+		mixedLiterals();
+		compiledChains();
+		sharedTemplates();
+		lazyEvaluation();
+		if (_sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Times interval functions recomputed in full, and the bytes each recomputation allocates.
+	 *
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void intervalRecomputation() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(3, INTERVAL_WIDTH);
+		for (int column = 1; column <= INTERVAL_WIDTH; column++) {
+			spreadsheet.insertContent(new Position(1, column), new LiteralInteger(column % 7 + 1));
+		}
+		spreadsheet.insertGamma("2;1", "=AVERAGE(1;1:1;" + INTERVAL_WIDTH + ")");
+		spreadsheet.insertGamma("3;1", "=PRODUCT(1;1:1;" + INTERVAL_WIDTH + ")");
+		System.out.println("Recomputing a function of " + INTERVAL_WIDTH + " cells in full, per recomputation");
+		for (int row = 2; row <= 3; row++) {
+			Observer function = (Observer) spreadsheet.getContent(new Position(row, 1));
+			long nanos = 0;
+			long bytes = 0;
+			for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+				long allocated = allocatedBytes();
+				long start = System.nanoTime();
+				for (int i = 0; i < RECOMPUTATIONS; i++) {
+					function.update();
+				}
+				if (run >= WARMUP_RUNS) {
+					nanos += System.nanoTime() - start;
+					bytes += allocatedBytes() - allocated;
+				}
+			}
+			System.out.printf("  %-30s %9.2f us  %7.1f bytes%n", spreadsheet.getContent(new Position(row, 1)),
+					nanos / 1e3 / TIMED_RUNS / RECOMPUTATIONS, (double) bytes / TIMED_RUNS / RECOMPUTATIONS);
+		}
+	}
+
+	/**
+	 * Times the edits to a column a function reads, with the function told about each of them against
+	 * recomputing it in full after each. Zeros come and go, which a product can't divide out.
+	 *
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void incrementalUpdates() throws Exception {
+		System.out.println("Editing a column of " + INCREMENTAL_ROWS + " cells read by a function, per edit");
+		for (String function: new String[] { "AVERAGE", "PRODUCT" }) {
+			Spreadsheet spreadsheet = new Spreadsheet(INCREMENTAL_ROWS, 2);
+			Random random = new Random(1);
+			for (int row = 1; row <= INCREMENTAL_ROWS; row++) {
+				spreadsheet.insertContent(new Position(row, 1), new LiteralInteger(random.nextInt(3) + 1));
+			}
+			spreadsheet.insertGamma("1;2", "=" + function + "(1;1:" + INCREMENTAL_ROWS + ";1)");
+			Observer observer = (Observer) spreadsheet.getContent(new Position(1, 2));
+			long[] totals = new long[2];
+			for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+				for (int mode = 0; mode < totals.length; mode++) {
+					long start = System.nanoTime();
+					for (int i = 0; i < INCREMENTAL_EDITS; i++) {
+						spreadsheet.insertContent(new Position(random.nextInt(INCREMENTAL_ROWS) + 1, 1),
+								new LiteralInteger(random.nextInt(4)));
+						if (mode == 1) {
+							observer.update();
+						}
+					}
+					if (run >= WARMUP_RUNS) {
+						totals[mode] += System.nanoTime() - start;
+					}
+				}
+			}
+			System.out.printf("  %-30s %9.2f us%n", function + " incremental", totals[0] / 1e3 / TIMED_RUNS / INCREMENTAL_EDITS);
+			System.out.printf("  %-30s %9.2f us%n", function + " recomputed", totals[1] / 1e3 / TIMED_RUNS / INCREMENTAL_EDITS);
+			_sink += spreadsheet.getContent(new Position(1, 2)).getValue().hashCode();
+		}
+	}
+
+	/**
+	 * Times a change that recomputes many formulas not reading each other, in parallel against on a single
+	 * thread. The formulas concatenate the strings of a row, which can't be updated incrementally, so changing
+	 * one of them recomputes every formula; only that change is timed.
+	 *
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void parallelRecalculation() throws Exception {
+		long[] totals = new long[2];
+		for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+			for (int mode = 0; mode < totals.length; mode++) {
+				Spreadsheet spreadsheet = new Spreadsheet(INDEPENDENT_FORMULAS + 1, INDEPENDENT_WIDTH);
+				spreadsheet.getDependencyGraph().setParallel(mode == 1);
+				for (int column = 1; column <= INDEPENDENT_WIDTH; column++) {
+					spreadsheet.insertContent(new Position(1, column), new LiteralString("s" + column % 5));
+				}
+				for (int row = 2; row <= INDEPENDENT_FORMULAS + 1; row++) {
+					spreadsheet.insertGamma(row + ";1", "=CONCAT(1;1:1;" + INDEPENDENT_WIDTH + ")");
+				}
+				long start = System.nanoTime();
+				spreadsheet.insertGamma("1;1", "'changed");
+				if (run >= WARMUP_RUNS) {
+					totals[mode] += System.nanoTime() - start;
+				}
+				_sink += spreadsheet.getContent(new Position(INDEPENDENT_FORMULAS + 1, 1)).getValue().hashCode();
+			}
+		}
+		System.out.println("Recalculating " + INDEPENDENT_FORMULAS + " independent formulas of " + INDEPENDENT_WIDTH
+				+ " cells, on " + Runtime.getRuntime().availableProcessors() + " cores");
+		System.out.printf("  %-30s %9.2f ms%n", "single thread", totals[0] / 1e6 / TIMED_RUNS);
+		System.out.printf("  %-30s %9.2f ms  %5.2fx%n", "parallel", totals[1] / 1e6 / TIMED_RUNS,
+				(double) totals[0] / totals[1]);
+	}
+
+	/**
+	 * Times adding up the integers of a range where every other literal is a string, telling them apart
+	 * through their type tags against catching the exception thrown for the strings.
+	 */
+	private static void mixedLiterals() {
+		Literal[] literals = new Literal[MIXED_LITERALS];
+		for (int i = 0; i < MIXED_LITERALS; i++) {
+			literals[i] = i % 2 == 0 ? new LiteralInteger(i % 100) : new LiteralString("s" + i % 100);
+		}
+		long[] totals = new long[2];
+		for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+			long start = System.nanoTime();
+			long sum = 0;
+			for (Literal literal: literals) {
+				if (literal.isInt()) {
+					sum += literal.intValueOr(0);
+				}
+			}
+			long tagged = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (Literal literal: literals) {
+				try {
+					sum += literal.getIntValue();
+				}
+				catch (InvalidValueTypeException e) {
+					// Not an integer, so left out of the sum
+				}
+			}
+			if (run >= WARMUP_RUNS) {
+				totals[0] += tagged;
+				totals[1] += System.nanoTime() - start;
+			}
+			_sink += sum;
+		}
+		System.out.println("Adding up the integers of " + MIXED_LITERALS + " mixed literals");
+		System.out.printf("  %-30s %9.2f ms%n", "type tags", totals[0] / 1e6 / TIMED_RUNS);
+		System.out.printf("  %-30s %9.2f ms%n", "exceptions", totals[1] / 1e6 / TIMED_RUNS);
+	}
+
+	/**
+	 * Times the recalculations of chains of binary functions while they are still interpreted, which they are
+	 * the first times they are computed, against once they are compiled.
+	 *
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void compiledChains() throws Exception {
+		System.out.println("Recalculating a chain of " + CHAIN + " binary functions, per recalculation");
+		for (String function: new String[] { "ADD", "MUL" }) {
+			long interpreted = 0;
+			long compiled = 0;
+			int interpretedCount = 0;
+			int compiledCount = 0;
+			for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+				Spreadsheet spreadsheet = new Spreadsheet(CHAIN + 1, 1);
+				spreadsheet.insertGamma("1;1", "1");
+				for (int row = 2; row <= CHAIN + 1; row++) {
+					spreadsheet.insertGamma(row + ";1", "=" + function + "(" + (row - 1) + ";1,1)");
+				}
+				// Each function was computed once when it was written
+				for (int edit = 2; edit <= 20; edit++) {
+					long start = System.nanoTime();
+					spreadsheet.insertContent(new Position(1, 1), new LiteralInteger(edit));
+					_sink += spreadsheet.getContent(new Position(CHAIN + 1, 1)).getValue().hashCode();
+					long elapsed = System.nanoTime() - start;
+					if (run < WARMUP_RUNS) {
+						continue;
+					}
+					if (edit < 8) {
+						interpreted += elapsed;
+						interpretedCount++;
+					}
+					else if (edit > 8) {
+						compiled += elapsed;
+						compiledCount++;
+					}
+				}
+			}
+			System.out.printf("  %-30s %9.2f us%n", function + " interpreted", interpreted / 1e3 / interpretedCount);
+			System.out.printf("  %-30s %9.2f us%n", function + " compiled", compiled / 1e3 / compiledCount);
+		}
+	}
+
+	/**
+	 * Measures the memory held by a column of binary functions filled down next to a column of literals, once
+	 * imported, where functions reading the same offsets share their template, against once written one at a
+	 * time, where each function keeps its operands to itself.
+	 *
+	 * @throws Exception if the file can't be written or read.
+	 */
+	private static void sharedTemplates() throws Exception {
+		File file = File.createTempFile("filled", ".txt");
+		file.deleteOnExit();
+		try (PrintWriter writer = new PrintWriter(file)) {
+			writer.println("linhas=" + FILLED_FORMULAS);
+			writer.println("colunas=2");
+			for (int row = 1; row <= FILLED_FORMULAS; row++) {
+				writer.println(row + ";1|" + row % 10);
+				writer.println(row + ";2|=ADD(" + row + ";1,1)");
+			}
+		}
+		long before = usedHeap();
+		Spreadsheet imported = new Parser().parseFile(file.getPath());
+		long shared = usedHeap() - before;
+		_sink += imported.getContent(new Position(FILLED_FORMULAS, 2)).getValue().hashCode();
+		imported = null;
+		before = usedHeap();
+		Spreadsheet written = new Spreadsheet(FILLED_FORMULAS, 2);
+		for (int row = 1; row <= FILLED_FORMULAS; row++) {
+			written.insertGamma(row + ";1", Integer.toString(row % 10));
+			written.insertGamma(row + ";2", "=ADD(" + row + ";1,1)");
+		}
+		long apart = usedHeap() - before;
+		_sink += written.getContent(new Position(FILLED_FORMULAS, 2)).getValue().hashCode();
+		System.out.println("Holding " + FILLED_FORMULAS + " functions filled down a column, per function");
+		System.out.printf("  %-30s %9.1f bytes%n", "imported, shared", (double) shared / FILLED_FORMULAS);
+		System.out.printf("  %-30s %9.1f bytes%n", "written, apart", (double) apart / FILLED_FORMULAS);
+	}
+
+	/**
+	 * Times writing every cell of a column read by formulas nothing reads, with the formulas evaluated
+	 * eagerly, recomputing each of them on every write, against lazily, only marking them stale. The formulas
+	 * concatenate the column, which can't be updated incrementally. The computations the lazy evaluation
+	 * avoided are counted by the graph.
+	 *
+	 * @throws Exception if a content is rejected.
+	 */
+	private static void lazyEvaluation() throws Exception {
+		long[] totals = new long[2];
+		long avoided = 0;
+		for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+			for (int mode = 0; mode < totals.length; mode++) {
+				Spreadsheet spreadsheet = new Spreadsheet(UNREAD_ROWS, UNREAD_FORMULAS + 1);
+				DependencyGraph graph = spreadsheet.getDependencyGraph();
+				graph.setLazyEvaluation(mode == 1);
+				for (int column = 2; column <= UNREAD_FORMULAS + 1; column++) {
+					spreadsheet.insertGamma("1;" + column, "=CONCAT(1;1:" + UNREAD_ROWS + ";1)");
+				}
+				long start = System.nanoTime();
+				for (int row = 1; row <= UNREAD_ROWS; row++) {
+					spreadsheet.insertContent(new Position(row, 1), new LiteralString("s" + row % 5));
+				}
+				if (run >= WARMUP_RUNS) {
+					totals[mode] += System.nanoTime() - start;
+					avoided += mode == 1 ? graph.getAvoidedComputationCount() : 0;
+				}
+				_sink += spreadsheet.getContent(new Position(1, UNREAD_FORMULAS + 1)).getValue().hashCode();
+			}
+		}
+		System.out.println("Writing a column of " + UNREAD_ROWS + " cells read by " + UNREAD_FORMULAS
+				+ " unread formulas, per run");
+		System.out.printf("  %-30s %9.2f ms%n", "eager", totals[0] / 1e6 / TIMED_RUNS);
+		System.out.printf("  %-30s %9.2f ms  %9d computations avoided%n", "lazy", totals[1] / 1e6 / TIMED_RUNS,
+				avoided / TIMED_RUNS);
+	}
+
+	/**
+	 * Retrieves the number of bytes of the heap in use, once whatever is unreachable is collected.
+	 *
+	 * @return The number of bytes in use.
+	 */
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Retrieves the number of bytes allocated by the current thread so far.
+	 *
+	 * @return The number of bytes allocated.
+	 */
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
+}
@@ -0,0 +1,183 @@
+package xxl.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the recalculation of {@link Spreadsheet}, checking the values kept up to date as random edits
+ * are made against the values of a spreadsheet written from scratch with the same contents.
+ */
+class RecalculationTest {
+
+	/** The number of rows and of columns of the spreadsheets. */
+	private static final int SIZE = 6;
+
+	/** The number of random edits made by each test. */
+	private static final int EDITS = 400;
+
+	@Test
+	void keepsValuesUpToDate() throws Exception {
+		check(new Random(1), false, false, false);
+	}
+
+	@Test
+	void keepsValuesUpToDateInParallel() throws Exception {
+		check(new Random(2), true, false, false);
+	}
+
+	@Test
+	void keepsValuesUpToDateLazily() throws Exception {
+		check(new Random(3), false, true, false);
+	}
+
+	@Test
+	void keepsValuesUpToDateInBatches() throws Exception {
+		check(new Random(4), true, false, true);
+	}
+
+	@Test
+	void updatesAveragesAndProductsIncrementally() throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(SIZE, SIZE);
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		graph.setConsistencyChecks(true);
+		Map<String, String> contents = new TreeMap<String, String>();
+		contents.put("6;1", "=AVERAGE(1;1:5;1)");
+		contents.put("6;2", "=PRODUCT(1;1:5;1)");
+		contents.put("6;3", "=ADD(6;1,6;2)");
+		for (Map.Entry<String, String> entry: contents.entrySet()) {
+			spreadsheet.insertGamma(entry.getKey(), entry.getValue());
+		}
+		Random random = new Random(5);
+		long updated = graph.getIncrementalUpdateCount();
+		for (int edit = 0; edit < EDITS; edit++) {
+			// Zeros come and go, which a product can't divide out
+			String position = (random.nextInt(5) + 1) + ";1";
+			String value = random.nextInt(8) == 0 ? "'text" : Integer.toString(random.nextInt(4) - 1);
+			spreadsheet.insertGamma(position, value);
+			contents.put(position, value);
+			assertEquals(rebuilt(contents), show(spreadsheet), "edit " + edit);
+		}
+		assertTrue(graph.getIncrementalUpdateCount() - updated > EDITS);
+	}
+
+	/**
+	 * Makes random edits to a spreadsheet, checking every value after each one. Formulas may read any
+	 * position, so cycles come and go.
+	 *
+	 * @param random   The source of the edits.
+	 * @param parallel Whether the recalculation runs in parallel.
+	 * @param lazy     Whether formulas are settled when read.
+	 * @param batches  Whether the edits are made in batches of a few.
+	 * @throws Exception if an edit is rejected.
+	 */
+	private static void check(Random random, boolean parallel, boolean lazy, boolean batches) throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(SIZE, SIZE);
+		DependencyGraph graph = spreadsheet.getDependencyGraph();
+		graph.setParallel(parallel);
+		graph.setLazyEvaluation(lazy);
+		graph.setConsistencyChecks(true);
+		Map<String, String> contents = new TreeMap<String, String>();
+		for (int edit = 0; edit < EDITS; edit++) {
+			if (batches) {
+				spreadsheet.beginBatch();
+				for (int count = random.nextInt(4); count >= 0; count--) {
+					write(spreadsheet, contents, random);
+				}
+				spreadsheet.commitBatch();
+			}
+			else {
+				write(spreadsheet, contents, random);
+			}
+			assertEquals(rebuilt(contents), show(spreadsheet), "edit " + edit);
+		}
+	}
+
+	/**
+	 * Writes a random content to a random position, or deletes it.
+	 *
+	 * @param spreadsheet The spreadsheet to write to.
+	 * @param contents    The contents written so far, by position, updated here.
+	 * @param random      The source of the edit.
+	 * @throws Exception if the edit is rejected.
+	 */
+	private static void write(Spreadsheet spreadsheet, Map<String, String> contents, Random random) throws Exception {
+		String position = cell(random);
+		String content = switch (random.nextInt(8)) {
+			case 0, 1 -> Integer.toString(random.nextInt(5));
+			case 2 -> "=" + cell(random);
+			case 3 -> "=ADD(" + cell(random) + "," + cell(random) + ")";
+			case 4 -> "=MUL(" + cell(random) + "," + random.nextInt(3) + ")";
+			case 5 -> "=AVERAGE(" + range(random) + ")";
+			case 6 -> "=PRODUCT(" + range(random) + ")";
+			default -> null;
+		};
+		if (content == null) {
+			spreadsheet.deleteGamma(position);
+			contents.remove(position);
+		}
+		else {
+			spreadsheet.insertGamma(position, content);
+			contents.put(position, content);
+		}
+	}
+
+	/**
+	 * Picks a random position.
+	 *
+	 * @param random The source of the position.
+	 * @return The position, as written in a formula.
+	 */
+	private static String cell(Random random) {
+		return (random.nextInt(SIZE) + 1) + ";" + (random.nextInt(SIZE) + 1);
+	}
+
+	/**
+	 * Picks a random range lying on a single row or a single column.
+	 *
+	 * @param random The source of the range.
+	 * @return The range, as written in a formula.
+	 */
+	private static String range(Random random) {
+		int line = random.nextInt(SIZE) + 1;
+		int from = random.nextInt(SIZE - 1) + 1;
+		int to = from + 1 + random.nextInt(SIZE - from);
+		return random.nextBoolean() ? line + ";" + from + ":" + line + ";" + to : from + ";" + line + ":" + to + ";" + line;
+	}
+
+	/**
+	 * Writes the given contents to a new spreadsheet, in row-major order, and shows all of it.
+	 *
+	 * @param contents The contents to write, by position.
+	 * @return The values of the new spreadsheet.
+	 * @throws Exception if a content is rejected.
+	 */
+	private static String rebuilt(Map<String, String> contents) throws Exception {
+		Spreadsheet spreadsheet = new Spreadsheet(SIZE, SIZE);
+		for (Map.Entry<String, String> entry: contents.entrySet()) {
+			spreadsheet.insertGamma(entry.getKey(), entry.getValue());
+		}
+		return show(spreadsheet);
+	}
+
+	/**
+	 * Shows every position of a spreadsheet, a row at a time.
+	 *
+	 * @param spreadsheet The spreadsheet to show.
+	 * @return The positions of the spreadsheet, with their values.
+	 * @throws Exception if a row can't be shown.
+	 */
+	private static String show(Spreadsheet spreadsheet) throws Exception {
+		StringBuilder shown = new StringBuilder();
+		for (int row = 1; row <= SIZE; row++) {
+			shown.append(spreadsheet.visualizeGamma(row + ";1:" + row + ";" + SIZE)).append("\n");
+		}
+		return shown.toString();
+	}
+
+}
@@ -0,0 +1,191 @@
+package xxl.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import xxl.core.Position;
+
+/**
+ * Tests for {@link AdaptiveStorage}.
+ */
+class AdaptiveStorageTest {
+
+	/** The number of rows of the storages tested, which leaves the last region partly outside. */
+	private static final int ROWS = 300;
+
+	/** The number of columns of the storages tested, which leaves the last region partly outside. */
+	private static final int COLUMNS = 200;
+
+	@Test
+	void migratesRegionsBetweenLayouts() {
+		AdaptiveStorage<Integer> storage = new AdaptiveStorage<Integer>(ROWS, COLUMNS);
+		for (int row = 1; row <= 64; row++) {
+			for (int column = 1; column <= 64; column++) {
+				storage.set(new Position(row, column), row * 1000 + column);
+			}
+		}
+		assertEquals(1, storage.stats().getDenseRegions());
+		assertEquals(0, storage.stats().getSparseRegions());
+
+		for (int row = 1; row <= 64; row++) {
+			for (int column = 1; column <= 64; column++) {
+				if (row != 1) {
+					storage.set(new Position(row, column), null);
+				}
+			}
+		}
+		assertEquals(0, storage.stats().getDenseRegions());
+		assertEquals(1, storage.stats().getSparseRegions());
+		assertEquals(64, storage.stats().getSize());
+		assertEquals(Integer.valueOf(1064), storage.get(1, 64));
+		assertNull(storage.get(2, 64));
+
+		for (int column = 1; column <= 64; column++) {
+			storage.set(new Position(1, column), null);
+		}
+		assertEquals(0, storage.stats().getSparseRegions());
+		assertFalse(storage.iterator().hasNext());
+	}
+
+	@Test
+	void rowCursorMatchesLookupsInEveryLayout() {
+		AdaptiveStorage<Integer> storage = filled();
+		for (int row = 1; row <= ROWS; row += 7) {
+			assertEquals(lookups(storage, row, -3, row, COLUMNS + 70), rowCursor(storage, row, -3, COLUMNS + 70), "row " + row);
+		}
+	}
+
+	@Test
+	void columnCursorMatchesLookupsInEveryLayout() {
+		AdaptiveStorage<Integer> storage = filled();
+		for (int column = 1; column <= COLUMNS; column += 5) {
+			assertEquals(lookups(storage, -3, column, ROWS + 70, column), columnCursor(storage, column, -3, ROWS + 70),
+					"column " + column);
+		}
+	}
+
+	@Test
+	void cursorStopsWhenAsked() {
+		AdaptiveStorage<Integer> storage = filled();
+		int[] visited = new int[1];
+		assertFalse(storage.forEachInRow(1, 1, COLUMNS, (row, column, element) -> ++visited[0] < 100));
+		assertEquals(100, visited[0]);
+		assertTrue(storage.forEachInColumn(1, 1, 10, (row, column, element) -> true));
+	}
+
+	@Test
+	void cursorSeesWritesMadeWhileWalking() {
+		AdaptiveStorage<Integer> storage = new AdaptiveStorage<Integer>(ROWS, COLUMNS);
+		// The region starts sparse and turns dense halfway through the walk
+		for (int row = 1; row <= 64; row++) {
+			for (int column = 1; column <= 16; column++) {
+				storage.set(new Position(row, column), 0);
+			}
+		}
+		List<Integer> seen = new ArrayList<Integer>();
+		storage.forEachInRow(1, 17, 64, (row, column, element) -> {
+			seen.add(element);
+			for (int r = 2; r <= 64; r++) {
+				storage.set(new Position(r, column), column);
+			}
+			storage.set(new Position(1, column + 1), column + 1);
+			return true;
+		});
+		assertEquals(1, storage.stats().getDenseRegions());
+		assertNull(seen.get(0));
+		for (int i = 1; i < seen.size(); i++) {
+			assertEquals(Integer.valueOf(17 + i), seen.get(i));
+		}
+	}
+
+	/**
+	 * Makes a storage holding a dense region, a sparse one, and nothing elsewhere.
+	 *
+	 * @return The storage.
+	 */
+	private static AdaptiveStorage<Integer> filled() {
+		AdaptiveStorage<Integer> storage = new AdaptiveStorage<Integer>(ROWS, COLUMNS);
+		for (int row = 1; row <= 64; row++) {
+			for (int column = 65; column <= 128; column++) {
+				if ((row + column) % 3 != 0) {
+					storage.set(new Position(row, column), row * 1000 + column);
+				}
+			}
+		}
+		for (int row = 1; row <= ROWS; row += 11) {
+			storage.set(new Position(row, 3), row);
+			storage.set(new Position(row, COLUMNS), -row);
+		}
+		assertEquals(1, storage.stats().getDenseRegions());
+		assertTrue(storage.stats().getSparseRegions() > 0);
+		return storage;
+	}
+
+	/**
+	 * Reads a slice one lookup at a time.
+	 *
+	 * @param storage    The storage to read.
+	 * @param fromRow    The row of the first position of the slice.
+	 * @param fromColumn The column of the first position of the slice.
+	 * @param toRow      The row of the last position of the slice.
+	 * @param toColumn   The column of the last position of the slice.
+	 * @return The elements of the slice, in order.
+	 */
+	private static List<Integer> lookups(Storage<Integer> storage, int fromRow, int fromColumn, int toRow, int toColumn) {
+		List<Integer> elements = new ArrayList<Integer>();
+		for (int row = fromRow; row <= toRow; row++) {
+			for (int column = fromColumn; column <= toColumn; column++) {
+				elements.add(storage.get(row, column));
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Reads a slice of a row through the cursor.
+	 *
+	 * @param storage    The storage to read.
+	 * @param row        The row of the slice.
+	 * @param fromColumn The first column of the slice.
+	 * @param toColumn   The last column of the slice.
+	 * @return The elements of the slice, in order.
+	 */
+	private static List<Integer> rowCursor(Storage<Integer> storage, int row, int fromColumn, int toColumn) {
+		List<Integer> elements = new ArrayList<Integer>();
+		int[] next = { fromColumn };
+		storage.forEachInRow(row, fromColumn, toColumn, (r, column, element) -> {
+			assertEquals(row, r);
+			assertEquals(next[0]++, column);
+			return elements.add(element);
+		});
+		return elements;
+	}
+
+	/**
+	 * Reads a slice of a column through the cursor.
+	 *
+	 * @param storage The storage to read.
+	 * @param column  The column of the slice.
+	 * @param fromRow The first row of the slice.
+	 * @param toRow   The last row of the slice.
+	 * @return The elements of the slice, in order.
+	 */
+	private static List<Integer> columnCursor(Storage<Integer> storage, int column, int fromRow, int toRow) {
+		List<Integer> elements = new ArrayList<Integer>();
+		int[] next = { fromRow };
+		storage.forEachInColumn(column, fromRow, toRow, (row, c, element) -> {
+			assertEquals(column, c);
+			assertEquals(next[0]++, row);
+			return elements.add(element);
+		});
+		return elements;
+	}
+
+}
@@ -0,0 +1,87 @@
+package xxl.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ColumnarLiteralStorage}, covering how it gives back the memory of the values removed.
+ */
+class ColumnarLiteralStorageTest {
+
+	@Test
+	void overwritingAValueKeepsOnlyTheNewOne() {
+		ColumnarLiteralStorage storage = new ColumnarLiteralStorage(10, 10);
+		storage.setString(3, 4, "a");
+		storage.setInt(3, 4, 7);
+		assertTrue(storage.hasInt(3, 4));
+		assertEquals(7, storage.getInt(3, 4));
+		assertNull(storage.getString(3, 4));
+		storage.setString(3, 4, "b");
+		assertFalse(storage.hasInt(3, 4));
+		assertEquals("b", storage.getString(3, 4));
+		assertEquals(1, storage.size());
+	}
+
+	@Test
+	void forgetsStringsNoPositionHolds() {
+		ColumnarLiteralStorage storage = new ColumnarLiteralStorage(1000, 10);
+		for (int row = 1; row <= 1000; row++) {
+			storage.setString(row, 1, "value " + row);
+		}
+		assertEquals(1000, storage.getDistinctStringCount());
+		for (int row = 1; row <= 1000; row++) {
+			storage.setString(row, 1, "shared");
+		}
+		assertEquals(1, storage.getDistinctStringCount());
+		storage.clear(500, 1);
+		assertEquals(1, storage.getDistinctStringCount());
+		assertEquals("shared", storage.getString(501, 1));
+		for (int row = 1; row <= 1000; row++) {
+			storage.clear(row, 1);
+		}
+		assertEquals(0, storage.getDistinctStringCount());
+	}
+
+	@Test
+	void reusesTheCodesOfForgottenStrings() {
+		ColumnarLiteralStorage storage = new ColumnarLiteralStorage(10, 10);
+		storage.setString(1, 1, "a");
+		storage.setString(2, 1, "b");
+		storage.clear(1, 1);
+		storage.setString(3, 1, "c");
+		storage.setString(4, 1, "b");
+		assertNull(storage.getString(1, 1));
+		assertEquals("b", storage.getString(2, 1));
+		assertEquals("c", storage.getString(3, 1));
+		assertEquals("b", storage.getString(4, 1));
+		assertEquals(2, storage.getDistinctStringCount());
+	}
+
+	@Test
+	void letsGoOfEmptiedChunks() {
+		ColumnarLiteralStorage storage = new ColumnarLiteralStorage(100000, 3);
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.setInt(row, 2, row);
+			storage.setString(row, 3, "s");
+		}
+		int chunks = storage.getChunkCount();
+		assertTrue(chunks > 2);
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.clear(row, 2);
+		}
+		assertEquals(chunks / 2, storage.getChunkCount());
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.clear(row, 3);
+		}
+		assertEquals(0, storage.getChunkCount());
+		assertEquals(0, storage.size());
+		storage.setInt(50000, 2, 1);
+		assertEquals(1, storage.getChunkCount());
+		assertEquals(1, storage.getInt(50000, 2));
+	}
+
+}
@@ -0,0 +1,109 @@
+package xxl.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OffHeapLiteralStorage}, covering how it gives back the memory of the values removed.
+ */
+class OffHeapLiteralStorageTest {
+
+	@Test
+	void forgetsStringsNoPositionHolds() {
+		OffHeapLiteralStorage storage = new OffHeapLiteralStorage(1000, 10);
+		for (int row = 1; row <= 1000; row++) {
+			storage.setString(row, 1, "value " + row);
+		}
+		assertEquals(1000, storage.getDistinctStringCount());
+		for (int row = 1; row <= 1000; row++) {
+			storage.setString(row, 1, "shared");
+		}
+		assertEquals(1, storage.getDistinctStringCount());
+		storage.setInt(1, 1, 5);
+		assertEquals(1, storage.getDistinctStringCount());
+		for (int row = 1; row <= 1000; row++) {
+			storage.clear(row, 1);
+		}
+		assertEquals(0, storage.getDistinctStringCount());
+		assertEquals(0, storage.size());
+	}
+
+	@Test
+	void rewritingTheSameStringKeepsIt() {
+		OffHeapLiteralStorage storage = new OffHeapLiteralStorage(10, 10);
+		storage.setString(1, 1, "a");
+		storage.setString(1, 1, "a");
+		assertEquals("a", storage.getString(1, 1));
+		assertEquals(1, storage.getDistinctStringCount());
+		storage.clear(1, 1);
+		assertEquals(0, storage.getDistinctStringCount());
+	}
+
+	@Test
+	void rejectedWritesKeepNoString() {
+		OffHeapLiteralStorage storage = new OffHeapLiteralStorage(10, 10);
+		assertThrows(IndexOutOfBoundsException.class, () -> storage.setString(11, 1, "a"));
+		assertEquals(0, storage.getDistinctStringCount());
+	}
+
+	@Test
+	void letsGoOfEmptiedChunks() {
+		OffHeapLiteralStorage storage = new OffHeapLiteralStorage(100000, 3);
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.setInt(row, 2, row);
+			storage.setString(row, 3, "s");
+		}
+		int chunks = storage.getChunkCount();
+		assertTrue(chunks > 2);
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.clear(row, 2);
+		}
+		assertEquals(chunks / 2, storage.getChunkCount());
+		for (int row = 1; row <= 100000; row += 7) {
+			storage.clear(row, 3);
+		}
+		assertEquals(0, storage.getChunkCount());
+		storage.setInt(50000, 2, 1);
+		assertEquals(1, storage.getChunkCount());
+		assertEquals(1, storage.getInt(50000, 2));
+	}
+
+	@Test
+	void keepsCountsAcrossSerialization() throws Exception {
+		OffHeapLiteralStorage storage = new OffHeapLiteralStorage(5000, 2);
+		storage.setString(1, 1, "a");
+		storage.setString(2000, 1, "a");
+		storage.setString(3, 2, "b");
+		storage.setInt(4, 2, 9);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(storage);
+		}
+		OffHeapLiteralStorage copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (OffHeapLiteralStorage) in.readObject();
+		}
+		assertEquals(4, copy.size());
+		assertEquals(2, copy.getDistinctStringCount());
+		assertEquals(3, copy.getChunkCount());
+		copy.clear(1, 1);
+		assertEquals("a", copy.getString(2000, 1));
+		copy.clear(2000, 1);
+		assertNull(copy.getString(2000, 1));
+		assertEquals(1, copy.getDistinctStringCount());
+		assertEquals(1, copy.getChunkCount());
+		assertTrue(copy.hasInt(4, 2));
+		assertFalse(copy.hasInt(3, 2));
+	}
+
+}
@@ -0,0 +1,102 @@
+package xxl.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import xxl.core.Position;
+
+/**
+ * Tests for {@link PackedHashStorage}, checked against {@link TreeMapStorage}.
+ */
+class PackedHashStorageTest {
+
+	@Test
+	void keepsPositionsWhoseHashCodesCollideApart() {
+		// Past column 401, the hash code of a position wraps onto the next row
+		Position first = new Position(1, 402);
+		Position second = new Position(2, 1);
+		assertEquals(first.hashCode(), second.hashCode());
+
+		PackedHashStorage<String> storage = new PackedHashStorage<String>();
+		storage.set(first, "first");
+		storage.set(second, "second");
+		assertEquals("first", storage.get(first));
+		assertEquals("second", storage.get(2, 1));
+
+		storage.set(first, null);
+		assertNull(storage.get(1, 402));
+		assertEquals("second", storage.get(second));
+	}
+
+	@Test
+	void removingAnElementKeepsTheOthersReachable() {
+		PackedHashStorage<Integer> storage = new PackedHashStorage<Integer>();
+		for (int column = 1; column <= 1000; column++) {
+			storage.set(new Position(1, column), column);
+		}
+		for (int column = 1; column <= 1000; column += 2) {
+			storage.set(new Position(1, column), null);
+		}
+		for (int column = 1; column <= 1000; column++) {
+			assertEquals(column % 2 == 0 ? Integer.valueOf(column) : null, storage.get(1, column));
+		}
+	}
+
+	@Test
+	void removingEveryElementLeavesItEmpty() {
+		PackedHashStorage<Integer> storage = new PackedHashStorage<Integer>();
+		for (int row = 1; row <= 100; row++) {
+			storage.set(new Position(row, 500), row);
+		}
+		for (int row = 1; row <= 100; row++) {
+			storage.set(new Position(row, 500), null);
+		}
+		assertFalse(storage.iterator().hasNext());
+		storage.set(new Position(7, 500), 7);
+		assertEquals(Integer.valueOf(7), storage.get(7, 500));
+	}
+
+	@Test
+	void matchesTreeMapStorageOnRandomEdits() {
+		Random random = new Random(42);
+		PackedHashStorage<Integer> packed = new PackedHashStorage<Integer>();
+		TreeMapStorage<Integer> tree = new TreeMapStorage<Integer>();
+		for (int i = 0; i < 20000; i++) {
+			Position position = new Position(1 + random.nextInt(50), 1 + random.nextInt(2000));
+			Integer element = random.nextInt(4) == 0 ? null : i;
+			packed.set(position, element);
+			tree.set(position, element);
+		}
+		for (int row = 1; row <= 50; row++) {
+			for (int column = 1; column <= 2000; column++) {
+				assertEquals(tree.get(row, column), packed.get(row, column), row + ";" + column);
+			}
+		}
+		assertEquals(nonNull(tree.iterator()), nonNull(packed.iterator()));
+	}
+
+	/**
+	 * Drains an iterator, leaving out nulls, which a {@link TreeMapStorage} keeps for removed elements.
+	 *
+	 * @param iterator The iterator to drain.
+	 * @return The elements, in order.
+	 */
+	private static List<Integer> nonNull(Iterator<Integer> iterator) {
+		List<Integer> elements = new ArrayList<Integer>();
+		iterator.forEachRemaining(element -> {
+			if (element != null) {
+				elements.add(element);
+			}
+		});
+		return elements;
+	}
+
+}
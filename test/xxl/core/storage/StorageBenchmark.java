@@ -0,0 +1,161 @@
+package xxl.core.storage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import xxl.core.Position;
+
+/**
+ * Times the {@link Storage} implementations against {@link TreeMapStorage} on sheets of a million cells:
+ * filling them, looking every cell up, scanning them row by row and iterating over them. Each storage is
+ * run a few times first, so the timings are taken once the code is compiled.
+ * <p>
+ * Run it with {@code java xxl.core.storage.StorageBenchmark}. It is not a test, so it doesn't run with them.
+ */
+public class StorageBenchmark {
+
+	/** The number of rows and of columns of the packed sheet. */
+	private static final int SIDE = 1000;
+
+	/** The number of cells written to the scattered sheet. */
+	private static final int SCATTERED_CELLS = SIDE * SIDE;
+
+	/** The number of rows of the scattered sheet, which only a few cells of each row are written to. */
+	private static final int SCATTERED_ROWS = 100000;
+
+	/** The number of columns of the scattered sheet. */
+	private static final int SCATTERED_COLUMNS = 10000;
+
+	/** The number of runs left out of the timings. */
+	private static final int WARMUP_RUNS = 3;
+
+	/** The number of runs timed. */
+	private static final int TIMED_RUNS = 5;
+
+	/** Keeps the results alive, so the lookups aren't optimized away. */
+	private static long _sink;
+
+	/**
+	 * Runs the benchmark and prints the timings, in milliseconds per run.
+	 *
+	 * @param args Unused.
+	 */
+	public static void main(String[] args) {
+		Map<String, Supplier<Storage<Object>>> packed = new LinkedHashMap<String, Supplier<Storage<Object>>>();
+		packed.put("TreeMapStorage", TreeMapStorage::new);
+		packed.put("DenseGridStorage", () -> new DenseGridStorage<Object>(SIDE, SIDE));
+		packed.put("PackedHashStorage", PackedHashStorage::new);
+		packed.put("AdaptiveStorage", () -> new AdaptiveStorage<Object>(SIDE, SIDE));
+		System.out.println("Packed " + SIDE + "x" + SIDE + " sheet");
+		for (Map.Entry<String, Supplier<Storage<Object>>> entry: packed.entrySet()) {
+			run(entry.getKey(), entry.getValue(), false);
+		}
+
+		Map<String, Supplier<Storage<Object>>> scattered = new LinkedHashMap<String, Supplier<Storage<Object>>>();
+		scattered.put("TreeMapStorage", TreeMapStorage::new);
+		scattered.put("PackedHashStorage", PackedHashStorage::new);
+		scattered.put("AdaptiveStorage", () -> new AdaptiveStorage<Object>(SCATTERED_ROWS, SCATTERED_COLUMNS));
+		System.out.println("Scattered " + SCATTERED_CELLS + " cells over a " + SCATTERED_ROWS + "x" + SCATTERED_COLUMNS + " sheet");
+		for (Map.Entry<String, Supplier<Storage<Object>>> entry: scattered.entrySet()) {
+			run(entry.getKey(), entry.getValue(), true);
+		}
+	}
+
+	/**
+	 * Times a storage and prints the average of the timed runs.
+	 *
+	 * @param name      The name of the storage.
+	 * @param factory   Makes an empty storage of the right size.
+	 * @param scattered Whether the cells are scattered over a big sheet instead of packed.
+	 */
+	private static void run(String name, Supplier<Storage<Object>> factory, boolean scattered) {
+		long[] totals = new long[4];
+		for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++) {
+			long[] timings = time(factory.get(), scattered);
+			if (run >= WARMUP_RUNS) {
+				for (int i = 0; i < totals.length; i++) {
+					totals[i] += timings[i];
+				}
+			}
+		}
+		System.out.printf("  %-20s set %7.1f  get %7.1f  row scan %7.1f  iterate %7.1f%n", name,
+				totals[0] / 1e6 / TIMED_RUNS, totals[1] / 1e6 / TIMED_RUNS, totals[2] / 1e6 / TIMED_RUNS,
+				totals[3] / 1e6 / TIMED_RUNS);
+	}
+
+	/**
+	 * Fills a storage, then reads it back in every way timed.
+	 *
+	 * @param storage   The empty storage.
+	 * @param scattered Whether the cells are scattered over a big sheet instead of packed.
+	 * @return The nanoseconds taken to fill, to look up, to scan and to iterate.
+	 */
+	private static long[] time(Storage<Object> storage, boolean scattered) {
+		Object element = new Object();
+		long[] timings = new long[4];
+
+		long start = System.nanoTime();
+		for (int i = 0; i < SCATTERED_CELLS; i++) {
+			storage.set(new Position(rowOf(i, scattered), columnOf(i, scattered)), element);
+		}
+		timings[0] = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		long found = 0;
+		for (int i = 0; i < SCATTERED_CELLS; i++) {
+			if (storage.get(rowOf(i, scattered), columnOf(i, scattered)) != null) {
+				found++;
+			}
+		}
+		timings[1] = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		long[] scanned = new long[1];
+		int rows = scattered ? SCATTERED_ROWS : SIDE;
+		int columns = scattered ? SCATTERED_COLUMNS / 100 : SIDE;
+		for (int row = 1; row <= rows; row++) {
+			storage.forEachInRow(row, 1, columns, (r, c, e) -> {
+				if (e != null) {
+					scanned[0]++;
+				}
+				return true;
+			});
+		}
+		timings[2] = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		long iterated = 0;
+		for (Iterator<Object> iterator = storage.iterator(); iterator.hasNext(); iterator.next()) {
+			iterated++;
+		}
+		timings[3] = System.nanoTime() - start;
+
+		_sink += found + scanned[0] + iterated;
+		return timings;
+	}
+
+	/**
+	 * Computes the row of the i-th cell written.
+	 *
+	 * @param i         The index of the cell.
+	 * @param scattered Whether the cells are scattered over a big sheet instead of packed.
+	 * @return The row of the cell.
+	 */
+	private static int rowOf(int i, boolean scattered) {
+		return scattered ? i % SCATTERED_ROWS + 1 : i / SIDE + 1;
+	}
+
+	/**
+	 * Computes the column of the i-th cell written. Scattered cells of a row are 97 columns apart.
+	 *
+	 * @param i         The index of the cell.
+	 * @param scattered Whether the cells are scattered over a big sheet instead of packed.
+	 * @return The column of the cell.
+	 */
+	private static int columnOf(int i, boolean scattered) {
+		return scattered ? (i / SCATTERED_ROWS) * 97 + 1 : i % SIDE + 1;
+	}
+
+}